@@ -0,0 +1,64 @@
+package eu.ha3.presencefootsteps;
+
+import net.minecraft.SharedConstants;
+import net.minecraft.server.Bootstrap;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Sets up just enough of the game for benchmarks to run without a client,
+ * and gives access to the config files shipped with the mod.
+ */
+public final class Headless {
+
+    private static boolean initialized;
+
+    private Headless() {}
+
+    /**
+     * Populates the vanilla registries (blocks, sounds, entity types) the lookups are keyed on.
+     *
+     * This runs the Forge-patched bootstrap outside of Forge's launcher. If that ever stops working,
+     * the failure names the classpath it ran on, so it can be told apart from a broken benchmark.
+     */
+    public static synchronized void bootstrap() {
+        if (!initialized) {
+            try {
+                SharedConstants.tryDetectVersion();
+                Bootstrap.bootStrap();
+            } catch (Throwable e) {
+                throw new IllegalStateException("Could not bootstrap the game outside of the Forge launcher. "
+                        + "The benchmarks need the jmh source set's runtime classpath, classpath was: "
+                        + System.getProperty("java.class.path"), e);
+            }
+            initialized = true;
+        }
+    }
+
+    /**
+     * Opens one of the shipped files under assets/presencefootsteps/config.
+     */
+    public static Reader openConfig(String name) throws IOException {
+        InputStream stream = Headless.class.getResourceAsStream("/assets/presencefootsteps/config/" + name);
+
+        if (stream == null) {
+            throw new IOException("Missing config file " + name);
+        }
+
+        return new InputStreamReader(stream, StandardCharsets.UTF_8);
+    }
+
+    public static String readConfig(String name) throws IOException {
+        try (InputStream stream = Headless.class.getResourceAsStream("/assets/presencefootsteps/config/" + name)) {
+            if (stream == null) {
+                throw new IOException("Missing config file " + name);
+            }
+
+            return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
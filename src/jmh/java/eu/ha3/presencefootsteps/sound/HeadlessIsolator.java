@@ -0,0 +1,147 @@
+package eu.ha3.presencefootsteps.sound;
+
+import eu.ha3.presencefootsteps.Headless;
+import eu.ha3.presencefootsteps.config.Variator;
+import eu.ha3.presencefootsteps.sound.acoustics.AcousticLibrary;
+import eu.ha3.presencefootsteps.sound.acoustics.AcousticSet;
+import eu.ha3.presencefootsteps.sound.acoustics.FixedAcoustic;
+import eu.ha3.presencefootsteps.sound.generator.Locomotion;
+import eu.ha3.presencefootsteps.sound.player.StepSoundPlayer;
+import eu.ha3.presencefootsteps.util.Clock;
+import eu.ha3.presencefootsteps.world.GolemGrid;
+import eu.ha3.presencefootsteps.world.GolemLookup;
+import eu.ha3.presencefootsteps.world.Index;
+import eu.ha3.presencefootsteps.world.LocomotionLookup;
+import eu.ha3.presencefootsteps.world.Lookup;
+import eu.ha3.presencefootsteps.world.PFSolver;
+import eu.ha3.presencefootsteps.world.PrimitiveLookup;
+import eu.ha3.presencefootsteps.world.Solver;
+import eu.ha3.presencefootsteps.world.StateLookup;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.level.block.SoundType;
+import net.minecraft.world.level.block.state.BlockState;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.function.Consumer;
+
+/**
+ * An isolator that runs without a sound engine. The acoustics and step player are supplied by the caller,
+ * and the lookups start out empty until {@link #loadMaps()} fills them from the shipped config files
+ * and compiles them against the acoustics, which must already be loaded by then.
+ */
+public class HeadlessIsolator implements Isolator {
+
+    private final Clock clock;
+
+    private final AcousticLibrary acoustics;
+
+    private final StepSoundPlayer stepPlayer;
+
+    private final Variator variator = new Variator();
+
+    private final StateLookup blockMap = new StateLookup();
+    private final GolemLookup golemMap = new GolemLookup();
+    private final PrimitiveLookup primitiveMap = new PrimitiveLookup();
+    private final LocomotionLookup locomotionMap = new LocomotionLookup();
+
+    private final GolemGrid golems = new GolemGrid();
+
+    private AcousticSet[] fixedAcoustics;
+
+    private Solver solver = new PFSolver(this);
+
+    public HeadlessIsolator(Clock clock, AcousticLibrary acoustics, StepSoundPlayer stepPlayer) throws IOException {
+        Headless.bootstrap();
+
+        this.clock = clock;
+        this.acoustics = acoustics;
+        this.stepPlayer = stepPlayer;
+        fixedAcoustics = FixedAcoustic.compile(acoustics);
+
+        load(variator::load, "variator.json");
+    }
+
+    public HeadlessIsolator withSolver(Solver solver) {
+        this.solver = solver;
+        return this;
+    }
+
+    /**
+     * Loads the block, golem, primitive and locomotion maps shipped with the mod.
+     */
+    public HeadlessIsolator loadMaps() throws IOException {
+        load(blockMap::load, "blockmap.json");
+        load(golemMap::load, "golemmap.json");
+        load(primitiveMap::load, "primitivemap.json");
+        load(locomotionMap::load, "locomotionmap.json");
+        blockMap.bake();
+        fixedAcoustics = FixedAcoustic.compile(acoustics);
+        blockMap.compile(acoustics);
+        golemMap.compile(acoustics);
+        primitiveMap.compile(acoustics);
+        return this;
+    }
+
+    private static void load(Consumer<Reader> parser, String file) throws IOException {
+        try (Reader reader = Headless.openConfig(file)) {
+            parser.accept(reader);
+        }
+    }
+
+    @Override
+    public AcousticLibrary getAcoustics() {
+        return acoustics;
+    }
+
+    @Override
+    public AcousticSet getAcoustic(FixedAcoustic acoustic) {
+        return fixedAcoustics[acoustic.ordinal()];
+    }
+
+    @Override
+    public Solver getSolver() {
+        return solver;
+    }
+
+    @Override
+    public Index<Entity, Locomotion> getLocomotionMap() {
+        return locomotionMap;
+    }
+
+    @Override
+    public Lookup<EntityType<?>> getGolemMap() {
+        return golemMap;
+    }
+
+    @Override
+    public Lookup<BlockState> getBlockMap() {
+        return blockMap;
+    }
+
+    @Override
+    public Lookup<SoundType> getPrimitiveMap() {
+        return primitiveMap;
+    }
+
+    @Override
+    public StepSoundPlayer getStepPlayer() {
+        return stepPlayer;
+    }
+
+    @Override
+    public Variator getVariator() {
+        return variator;
+    }
+
+    @Override
+    public Clock getClock() {
+        return clock;
+    }
+
+    @Override
+    public GolemGrid getGolemGrid() {
+        return golems;
+    }
+}
@@ -0,0 +1,49 @@
+package eu.ha3.presencefootsteps.sound;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of one entity-tick when replaying a recorded trace.
+ * Pass the trace to replay with -p trace=path/to/trace.pftrace
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReplayBenchmark {
+
+    @Param("")
+    public String trace;
+
+    private TraceReplay replay;
+
+    @Setup(Level.Trial)
+    public void load() throws IOException {
+        if (trace.isEmpty()) {
+            throw new IllegalArgumentException("No trace given, pass one with -p trace=<file>");
+        }
+
+        replay = new TraceReplay(Paths.get(trace));
+        replay.reset();
+        System.out.println(replay.run() + " entity-ticks per replay");
+    }
+
+    @Setup(Level.Invocation)
+    public void reset() {
+        replay.reset();
+    }
+
+    /**
+     * Divide by the number of entity-ticks in the trace, printed at the start of the run, for the cost of each.
+     */
+    @Benchmark
+    public long replay() {
+        return replay.run();
+    }
+}
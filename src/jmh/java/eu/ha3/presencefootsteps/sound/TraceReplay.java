@@ -0,0 +1,286 @@
+package eu.ha3.presencefootsteps.sound;
+
+import eu.ha3.presencefootsteps.Headless;
+import eu.ha3.presencefootsteps.sound.acoustics.AcousticsJsonParser;
+import eu.ha3.presencefootsteps.sound.acoustics.AcousticsPlayer;
+import eu.ha3.presencefootsteps.sound.generator.Locomotion;
+import eu.ha3.presencefootsteps.sound.generator.StepSoundGenerator;
+import eu.ha3.presencefootsteps.sound.generator.TraceEntity;
+import eu.ha3.presencefootsteps.sound.player.NullSoundPlayer;
+import eu.ha3.presencefootsteps.util.BinaryUtil;
+import eu.ha3.presencefootsteps.util.Clock;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.phys.Vec3;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Plays a trace written by the {@link TraceRecorder} back through the real step generators, solver,
+ * lookups and acoustics, as fast as they'll go.
+ *
+ * The level only knows the blocks that were recorded around each entity's feet, and
+ * every entity is replayed as if it were someone other than the client player.
+ * Golems aren't recorded, so nothing is ever found standing on one.
+ *
+ * Run main with a trace file and optionally a number of passes to print how long each entity-tick took:
+ * {@code TraceReplay trace.pftrace [passes]}
+ */
+public class TraceReplay {
+
+    private final Clock clock = new Clock();
+
+    private final NullSoundPlayer sounds = new NullSoundPlayer();
+
+    private final AcousticsPlayer acoustics = new AcousticsPlayer(sounds, clock, () -> 128, () -> 32);
+
+    private final HeadlessIsolator isolator;
+
+    private final Long2ObjectOpenHashMap<BlockState> blocks = new Long2ObjectOpenHashMap<>();
+
+    private final Int2ObjectOpenHashMap<Actor> actors = new Int2ObjectOpenHashMap<>();
+
+    private final List<Frame> frames = new ArrayList<>();
+
+    private final Level level = Mockito.mock(Level.class);
+
+    private long steps;
+
+    private long playedBefore;
+
+    private Frame frame;
+
+    private Input input;
+
+    public TraceReplay(Path file) throws IOException {
+        try (Reader reader = Headless.openConfig("acoustics.json")) {
+            new AcousticsJsonParser(acoustics).parse(reader);
+        }
+
+        isolator = new HeadlessIsolator(clock, acoustics, assos -> steps++).loadMaps();
+
+        blocks.defaultReturnValue(Blocks.AIR.defaultBlockState());
+        Mockito.when(level.getBlockState(ArgumentMatchers.any())).thenAnswer(i -> blocks.get(((BlockPos) i.getArgument(0)).asLong()));
+        Mockito.when(level.getGameTime()).thenAnswer(i -> frame.gameTime);
+        Mockito.when(level.isRainingAt(ArgumentMatchers.any())).thenAnswer(i -> (input.flags & TraceRecorder.RAINED_ON) != 0);
+        TraceEntity.setRandom(level, new Random(0));
+
+        read(file);
+    }
+
+    private void read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file)), 1 << 16))) {
+            if (in.readInt() != TraceRecorder.MAGIC) {
+                throw new IOException(file + " is not a footstep trace");
+            }
+            if (in.readInt() != TraceRecorder.VERSION) {
+                throw new IOException(file + " was written by a different version of the recorder");
+            }
+            if (in.readInt() != Block.BLOCK_STATE_REGISTRY.size()) {
+                throw new IOException(file + " was recorded with a different set of blocks");
+            }
+
+            List<Long> changedPositions = new ArrayList<>();
+            List<BlockState> changedStates = new ArrayList<>();
+
+            while (true) {
+                int type;
+                try {
+                    type = in.readByte();
+                } catch (EOFException e) {
+                    break;
+                }
+
+                if (type == TraceRecorder.BLOCK) {
+                    changedPositions.add(in.readLong());
+                    changedStates.add(Block.stateById(in.readInt()));
+                } else if (type == TraceRecorder.ENTITY) {
+                    int id = in.readInt();
+                    String entityType = BinaryUtil.readString(in);
+                    actors.put(id, new Actor(entityType, Locomotion.values()[in.readByte()]));
+                } else if (type == TraceRecorder.FRAME) {
+                    Frame frame = new Frame(in.readLong(), in.readLong(), in.readInt());
+
+                    frame.changedPositions = changedPositions.stream().mapToLong(Long::longValue).toArray();
+                    frame.changedStates = changedStates.toArray(new BlockState[0]);
+                    changedPositions.clear();
+                    changedStates.clear();
+
+                    for (int i = 0; i < frame.inputs.length; i++) {
+                        frame.inputs[i] = new Input(in);
+                    }
+
+                    frames.add(frame);
+                } else {
+                    throw new IOException("Unknown record " + type + " in " + file);
+                }
+            }
+        }
+    }
+
+    public int getFrameCount() {
+        return frames.size();
+    }
+
+    public int getEntityCount() {
+        return actors.size();
+    }
+
+    public long getSoundsPlayed() {
+        return sounds.getPlayed() - playedBefore + steps;
+    }
+
+    /**
+     * Puts everything back the way it was before the first frame, with new generators for every entity.
+     */
+    public void reset() {
+        blocks.clear();
+        steps = 0;
+        playedBefore = sounds.getPlayed();
+        actors.values().forEach(Actor::reset);
+    }
+
+    /**
+     * Replays every frame once.
+     *
+     * @return the number of entity-ticks simulated
+     */
+    public long run() {
+        long simulated = 0;
+
+        for (Frame frame : frames) {
+            this.frame = frame;
+            clock.set(frame.time);
+
+            for (int i = 0; i < frame.changedPositions.length; i++) {
+                blocks.put(frame.changedPositions[i], frame.changedStates[i]);
+            }
+
+            for (Input input : frame.inputs) {
+                this.input = input;
+                Actor actor = actors.get(input.id);
+                input.apply(actor.entity);
+                actor.generator.generateFootsteps(actor.entity.getEntity());
+            }
+
+            simulated += frame.inputs.length;
+        }
+
+        return simulated;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: TraceReplay <trace.pftrace> [passes]");
+            return;
+        }
+
+        TraceReplay replay = new TraceReplay(Paths.get(args[0]));
+        int passes = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        System.out.printf(Locale.ROOT, "%d frames, %d entities%n", replay.getFrameCount(), replay.getEntityCount());
+
+        for (int pass = 0; pass < passes; pass++) {
+            replay.reset();
+
+            long start = System.nanoTime();
+            long ticks = replay.run();
+            long elapsed = System.nanoTime() - start;
+
+            System.out.printf(Locale.ROOT, "pass %d: %d entity-ticks, %d sounds, %.2fus per entity-tick%n",
+                    pass, ticks, replay.getSoundsPlayed(), elapsed / 1000D / Math.max(1, ticks));
+        }
+    }
+
+    private class Actor {
+        private final String type;
+        private final Locomotion locomotion;
+        private final TraceEntity entity = new TraceEntity(level);
+
+        private StepSoundGenerator generator;
+
+        Actor(String type, Locomotion locomotion) {
+            this.type = type;
+            this.locomotion = locomotion;
+            reset();
+        }
+
+        void reset() {
+            generator = locomotion.supplyGenerator();
+            generator.setIsolator(isolator);
+        }
+
+        @Override
+        public String toString() {
+            return type + " (" + locomotion + ")";
+        }
+    }
+
+    private static class Frame {
+        private final long time;
+        private final long gameTime;
+        private final Input[] inputs;
+
+        private long[] changedPositions;
+        private BlockState[] changedStates;
+
+        Frame(long time, long gameTime, int count) {
+            this.time = time;
+            this.gameTime = gameTime;
+            this.inputs = new Input[count];
+        }
+    }
+
+    private static class Input {
+        private final int id;
+        private final int flags;
+        private final double x;
+        private final double y;
+        private final double z;
+        private final float yaw;
+        private final float moveDist;
+        private final float fallDistance;
+        private final Vec3 motion;
+        private final float strafe;
+        private final float width;
+        private final float height;
+
+        Input(DataInputStream in) throws IOException {
+            id = in.readInt();
+            flags = in.readByte();
+            x = in.readDouble();
+            y = in.readDouble();
+            z = in.readDouble();
+            yaw = in.readFloat();
+            moveDist = in.readFloat();
+            fallDistance = in.readFloat();
+            motion = new Vec3(in.readFloat(), in.readFloat(), in.readFloat());
+            strafe = in.readFloat();
+            width = in.readFloat();
+            height = in.readFloat();
+        }
+
+        void apply(TraceEntity entity) {
+            entity.set(x, y, z, yaw, flags, moveDist, fallDistance, motion, strafe, width, height);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package eu.ha3.presencefootsteps.sound.acoustics;
+
+import com.google.gson.JsonParser;
+import eu.ha3.presencefootsteps.Headless;
+import eu.ha3.presencefootsteps.sound.Options;
+import eu.ha3.presencefootsteps.sound.State;
+import eu.ha3.presencefootsteps.sound.player.NullSoundPlayer;
+import eu.ha3.presencefootsteps.util.Clock;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing the shipped acoustics library and playing acoustics out of it
+ * into a sound player that does nothing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AcousticsBenchmark {
+
+    private static final String[] ASSOCIATIONS = {
+            "stone", "dirt,straw", "wood,stone", "grass", "marble,ore", "mudfine,splash"
+    };
+
+    private String json;
+
+    private final Clock clock = new Clock();
+
+    private NullSoundPlayer player;
+
+    private AcousticsPlayer library;
+
+    private AcousticSet[] associations;
+
+    private Acoustic weighted;
+
+    private Acoustic events;
+
+    private int index;
+
+    @Setup
+    public void setup() throws IOException {
+        json = Headless.readConfig("acoustics.json");
+
+        player = new NullSoundPlayer();
+        library = newLibrary();
+        new AcousticsJsonParser(library).parse(new StringReader(json));
+
+        associations = new AcousticSet[ASSOCIATIONS.length];
+        for (int i = 0; i < ASSOCIATIONS.length; i++) {
+            associations[i] = library.compile(ASSOCIATIONS[i]);
+        }
+
+        AcousticsJsonParser parser = new AcousticsJsonParser(library);
+        weighted = parser.solveAcoustic(JsonParser.parseString(
+                "{\"type\": \"probability\", \"array\": [1, \"a\", 2, \"b\", 3, \"c\", 4, \"d\"]}"));
+        events = parser.solveAcoustic(JsonParser.parseString(
+                "{\"type\": \"events\", \"walk\": \"a\", \"run\": \"b\", \"land\": \"c\", \"jump\": \"d\"}"));
+    }
+
+    private AcousticsPlayer newLibrary() {
+        return new AcousticsPlayer(player, clock, () -> 128, () -> 32);
+    }
+
+    @Benchmark
+    public AcousticsPlayer parseLibrary() {
+        AcousticsPlayer library = newLibrary();
+        new AcousticsJsonParser(library).parse(new StringReader(json));
+        return library;
+    }
+
+    @Benchmark
+    public long playAcoustic() {
+        index = (index + 1) % associations.length;
+        library.playAcoustic(null, associations[index], State.WALK, Options.EMPTY);
+        return player.getPlayed();
+    }
+
+    @Benchmark
+    public long weightedDispatch() {
+        weighted.playSound(player, null, State.WALK, Options.EMPTY);
+        return player.getPlayed();
+    }
+
+    @Benchmark
+    public long eventDispatch() {
+        // UP_RUN isn't mapped, so this also walks the transition to RUN
+        events.playSound(player, null, State.UP_RUN, Options.EMPTY);
+        return player.getPlayed();
+    }
+}
@@ -0,0 +1,83 @@
+package eu.ha3.presencefootsteps.sound.acoustics;
+
+import eu.ha3.presencefootsteps.sound.Options;
+import eu.ha3.presencefootsteps.sound.State;
+import eu.ha3.presencefootsteps.sound.player.StepSoundPlayer;
+import eu.ha3.presencefootsteps.util.Clock;
+import eu.ha3.presencefootsteps.world.Association;
+import net.minecraft.world.entity.Entity;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An acoustic library that remembers what it was asked to play instead of playing it.
+ *
+ * Every name compiles to an empty set of that name, so no acoustics need to be loaded.
+ */
+public class RecordingAcoustics implements AcousticLibrary, StepSoundPlayer {
+
+    private final Map<String, AcousticSet> compiled = new HashMap<>();
+
+    private final List<Sound> sounds = new ArrayList<>();
+
+    private final Clock clock;
+
+    public RecordingAcoustics(Clock clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public void addAcoustic(String name, Acoustic acoustic) {
+    }
+
+    @Override
+    public AcousticSet compile(String acousticName) {
+        return compiled.computeIfAbsent(acousticName, name -> new AcousticSet(name, new Acoustic[0]));
+    }
+
+    @Override
+    public void playAcoustic(Entity location, AcousticSet acoustics, State event, Options options) {
+        sounds.add(new Sound(clock.getTime(), location, acoustics.getName(), event,
+                options.hasGlidingVolume() ? options.getGlidingVolume() : 1));
+    }
+
+    @Override
+    public void playStep(Association assos) {
+        sounds.add(new Sound(clock.getTime(), assos.getSource(), "_STEP", State.WALK, 1));
+    }
+
+    @Override
+    public void think() {
+    }
+
+    public List<Sound> getSounds() {
+        return sounds;
+    }
+
+    public void clear() {
+        sounds.clear();
+    }
+
+    public static class Sound {
+        public final long time;
+
+        public final Entity location;
+
+        public final String acoustic;
+
+        public final State event;
+
+        public final float volume;
+
+        Sound(long time, Entity location, String acoustic, State event, float volume) {
+            this.time = time;
+            this.location = location;
+            this.acoustic = acoustic;
+            this.event = event;
+            this.volume = volume;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package eu.ha3.presencefootsteps.sound.generator;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of one entity-tick for each kind of step generator,
+ * driven by the scripted lap against a solver that always finds the same block.
+ *
+ * The entities are real, but the level they're in is a mock. The biped generator asks it for the game time
+ * every tick, see {@link MockedLevelBenchmark} for what that costs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeneratorBenchmark {
+
+    private static final int TICKS = 2000;
+    private static final int ENTITIES = 16;
+
+    @Param({"BIPED", "QUADRUPED", "FLYING"})
+    public Locomotion locomotion;
+
+    private final MovementTrace trace = MovementTrace.lap(TICKS);
+
+    private GeneratorHarness harness;
+
+    @Setup(Level.Invocation)
+    public void setup() throws IOException {
+        harness = new GeneratorHarness(locomotion, trace, ENTITIES);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TICKS * ENTITIES)
+    public long entityTick() {
+        return harness.run();
+    }
+}
@@ -0,0 +1,134 @@
+package eu.ha3.presencefootsteps.sound.generator;
+
+import eu.ha3.presencefootsteps.sound.HeadlessIsolator;
+import eu.ha3.presencefootsteps.sound.Isolator;
+import eu.ha3.presencefootsteps.sound.acoustics.RecordingAcoustics;
+import eu.ha3.presencefootsteps.util.Clock;
+import eu.ha3.presencefootsteps.world.FakeSolver;
+import net.minecraft.world.entity.Entity;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Runs step generators for a group of entities following a movement trace, with no client or level.
+ *
+ * Each tick advances the clock by 50ms, moves every entity on to its next frame and generates its footsteps.
+ * The sounds that would have been played are recorded so runs can be compared before and after a change.
+ *
+ * Run main with a locomotion and optionally a trace file to print the sounds a trace produces:
+ * {@code GeneratorHarness BIPED [trace.txt]}
+ */
+public class GeneratorHarness {
+
+    /**
+     * Where the clock starts, so the generators see times like they would in game rather than ones near zero.
+     */
+    private static final long START_TIME = 1_000_000L;
+
+    private final Clock clock = new Clock();
+
+    private final RecordingAcoustics acoustics = new RecordingAcoustics(clock);
+
+    private final MovementTrace trace;
+
+    private final TraceEntity[] entities;
+
+    private final StepSoundGenerator[] generators;
+
+    private int tick;
+
+    public GeneratorHarness(Locomotion locomotion, MovementTrace trace, int count) throws IOException {
+        Isolator isolator = new HeadlessIsolator(clock, acoustics, acoustics).withSolver(new FakeSolver(acoustics, "stone"));
+
+        this.trace = trace;
+        clock.set(START_TIME);
+        entities = new TraceEntity[count];
+        generators = new StepSoundGenerator[count];
+
+        for (int i = 0; i < count; i++) {
+            entities[i] = new TraceEntity(TraceEntity.createLevel(i));
+            generators[i] = locomotion.supplyGenerator();
+            generators[i].setIsolator(isolator);
+        }
+    }
+
+    /**
+     * Moves every entity on by one tick.
+     *
+     * @return the number of entity-ticks simulated, zero once the trace has run out
+     */
+    public int tick() {
+        if (tick >= trace.size()) {
+            return 0;
+        }
+
+        clock.advance(50);
+        MovementTrace.Frame frame = trace.get(tick++);
+
+        for (int i = 0; i < entities.length; i++) {
+            entities[i].follow(frame);
+            generators[i].generateFootsteps(entities[i].getEntity());
+        }
+
+        return entities.length;
+    }
+
+    /**
+     * Runs until the trace has run out.
+     *
+     * @return the number of entity-ticks simulated
+     */
+    public long run() {
+        long total = 0;
+        int simulated;
+
+        while ((simulated = tick()) > 0) {
+            total += simulated;
+        }
+
+        return total;
+    }
+
+    public RecordingAcoustics getAcoustics() {
+        return acoustics;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Locomotion locomotion = args.length > 0 ? Locomotion.byName(args[0].toUpperCase(Locale.ROOT)) : Locomotion.BIPED;
+        MovementTrace trace;
+
+        if (args.length > 1) {
+            try (Reader reader = Files.newBufferedReader(Paths.get(args[1]), StandardCharsets.UTF_8)) {
+                trace = MovementTrace.read(reader);
+            }
+        } else {
+            trace = MovementTrace.lap(2000);
+        }
+
+        GeneratorHarness harness = new GeneratorHarness(locomotion, trace, 1);
+
+        long start = System.nanoTime();
+        long ticks = harness.run();
+        long elapsed = System.nanoTime() - start;
+
+        Map<Entity, Integer> ids = new IdentityHashMap<>();
+        for (RecordingAcoustics.Sound sound : harness.getAcoustics().getSounds()) {
+            System.out.printf(Locale.ROOT, "%6d %d %-8s %-12s %.3f%n",
+                    (sound.time - START_TIME) / 50,
+                    ids.computeIfAbsent(sound.location, e -> ids.size()),
+                    sound.event,
+                    sound.acoustic,
+                    sound.volume);
+        }
+
+        System.out.printf(Locale.ROOT, "%d sounds over %d entity-ticks, %.1fus per entity-tick%n",
+                harness.getAcoustics().getSounds().size(), ticks, elapsed / 1000D / Math.max(1, ticks));
+    }
+}
@@ -0,0 +1,26 @@
+package eu.ha3.presencefootsteps.sound.generator;
+
+import net.minecraft.world.level.Level;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a single call through the mocked level the benchmark entities are in,
+ * the only mock left in an entity-tick, so it can be told apart from the generators' own cost.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MockedLevelBenchmark {
+
+    private final Level level = TraceEntity.createLevel(0);
+
+    @Benchmark
+    public long getGameTime() {
+        return level.getGameTime();
+    }
+}
@@ -0,0 +1,142 @@
+package eu.ha3.presencefootsteps.sound.generator;
+
+import eu.ha3.presencefootsteps.sound.TraceRecorder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * An entity's movement, one frame per tick, for driving step generators without a level.
+ *
+ * Traces are stored as text with one frame per line: {@code x y z yaw flags},
+ * where flags are the bits below. Blank lines and lines starting with # are skipped.
+ */
+public class MovementTrace {
+
+    public static final int ON_GROUND = TraceRecorder.ON_GROUND;
+    public static final int CLIMBING = TraceRecorder.CLIMBING;
+    public static final int UNDERWATER = TraceRecorder.UNDERWATER;
+    public static final int SNEAKING = TraceRecorder.SNEAKING;
+    public static final int SPRINTING = TraceRecorder.SPRINTING;
+
+    private final List<Frame> frames = new ArrayList<>();
+
+    public MovementTrace add(double x, double y, double z, float yaw, int flags) {
+        frames.add(new Frame(x, y, z, yaw, flags));
+        return this;
+    }
+
+    public Frame get(int tick) {
+        return frames.get(tick);
+    }
+
+    public int size() {
+        return frames.size();
+    }
+
+    public static MovementTrace read(Reader reader) throws IOException {
+        MovementTrace trace = new MovementTrace();
+        BufferedReader lines = new BufferedReader(reader);
+        String line;
+
+        while ((line = lines.readLine()) != null) {
+            line = line.trim();
+
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            String[] values = line.split("\\s+");
+            trace.add(
+                    Double.parseDouble(values[0]),
+                    Double.parseDouble(values[1]),
+                    Double.parseDouble(values[2]),
+                    Float.parseFloat(values[3]),
+                    Integer.parseInt(values[4])
+            );
+        }
+
+        return trace;
+    }
+
+    public void write(Writer writer) throws IOException {
+        for (Frame frame : frames) {
+            writer.write(String.format(Locale.ROOT, "%.4f %.4f %.4f %.2f %d%n", frame.x, frame.y, frame.z, frame.yaw, frame.flags));
+        }
+    }
+
+    /**
+     * A scripted lap that goes through every kind of movement the generators react to:
+     * walking, jumping, sprinting, standing still, climbing a ladder, falling off it and swimming.
+     * Repeated as many times as needed to fill the given number of ticks.
+     */
+    public static MovementTrace lap(int ticks) {
+        MovementTrace trace = new MovementTrace();
+        double x = 0;
+        double y = 64;
+        double z = 0;
+
+        for (int tick = 0; tick < ticks; tick++) {
+            int t = tick % 200;
+            int flags = ON_GROUND;
+
+            if (t < 60) { // walk
+                x += 0.2;
+            } else if (t < 72) { // standing jump
+                int air = t - 60;
+                y = 64 + 0.42 * air - 0.035 * air * air;
+                flags = air == 0 ? ON_GROUND : 0;
+            } else if (t < 112) { // sprint
+                y = 64;
+                z += 0.28;
+                flags |= SPRINTING;
+            } else if (t < 140) { // stand still
+            } else if (t < 160) { // climb a ladder
+                y += 0.12;
+                flags = CLIMBING;
+            } else if (t < 168) { // fall back off it
+                y = Math.max(64, y - 0.3 * (t - 159));
+                flags = y > 64 ? 0 : ON_GROUND;
+            } else if (t < 190) { // swim
+                y = 64;
+                x -= 0.1;
+                flags = UNDERWATER;
+            } else { // sneak back out
+                x -= 0.065;
+                z -= 0.3;
+                flags |= SNEAKING;
+            }
+
+            trace.add(x, y, z, (tick * 3) % 360, flags);
+        }
+
+        return trace;
+    }
+
+    public static class Frame {
+        public final double x;
+        public final double y;
+        public final double z;
+
+        public final float yaw;
+
+        public final int flags;
+
+        Frame(double x, double y, double z, float yaw, int flags) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.yaw = yaw;
+            this.flags = flags;
+        }
+
+        public boolean is(int flag) {
+            return (flags & flag) != 0;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package eu.ha3.presencefootsteps.sound.generator;
+
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.EquipmentSlot;
+import net.minecraft.world.entity.HumanoidArm;
+import net.minecraft.world.entity.LivingEntity;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.phys.AABB;
+import net.minecraft.world.phys.Vec3;
+import org.mockito.Mockito;
+import org.objenesis.ObjenesisStd;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.Random;
+
+/**
+ * A stand-in for a living entity that is moved by hand instead of being ticked by a level.
+ *
+ * Only what the step generators and solver read is faked. It can either follow a movement trace,
+ * accumulating the distance walked and fall distance the same way the game does in Entity.move
+ * and checkFallDamage, or be given recorded values directly.
+ *
+ * The entity is a real subclass rather than a mock, so what the generators call on it costs what it would in game.
+ * Its constructor is skipped, because a living entity's constructor needs attributes Forge only registers once
+ * it's loaded. Whatever the final getters read is set on the fields behind them instead.
+ *
+ * The level is still a mock, see {@link MockedLevelBenchmark} for what each call to it costs.
+ */
+public class TraceEntity {
+
+    private static final ObjenesisStd OBJENESIS = new ObjenesisStd();
+
+    private static final VarHandle POSITION;
+
+    static {
+        try {
+            POSITION = MethodHandles.privateLookupIn(Entity.class, MethodHandles.lookup()).findVarHandle(Entity.class, "position", Vec3.class);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not reach the entity's position", e);
+        }
+    }
+
+    private final Body entity = OBJENESIS.newInstance(Body.class);
+
+    private double x;
+    private double y;
+    private double z;
+
+    private float width = 0.6F;
+    private float height = 1.8F;
+
+    private boolean moved;
+
+    public TraceEntity(Level level) {
+        entity.level = level;
+        entity.motion = Vec3.ZERO;
+        update();
+    }
+
+    /**
+     * Creates a level that does nothing but hand out random numbers,
+     * which the flying generator needs for its wing beats.
+     */
+    public static Level createLevel(long seed) {
+        Level level = Mockito.mock(Level.class);
+        setRandom(level, new Random(seed));
+        return level;
+    }
+
+    public static void setRandom(Level level, Random rng) {
+        try {
+            Field random = Level.class.getField("random");
+            random.setAccessible(true);
+            random.set(level, rng);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not give the fake level a random", e);
+        }
+    }
+
+    public LivingEntity getEntity() {
+        return entity;
+    }
+
+    private boolean is(int flag) {
+        return entity.is(flag);
+    }
+
+    private void update() {
+        POSITION.set(entity, new Vec3(x, y, z));
+        entity.setBoundingBox(new AABB(x - width / 2, y, z - width / 2, x + width / 2, y + height, z + width / 2));
+    }
+
+    /**
+     * Moves to the next frame of a movement trace.
+     */
+    public void follow(MovementTrace.Frame frame) {
+        double dx = frame.x - x;
+        double dy = frame.is(MovementTrace.CLIMBING) ? frame.y - y : 0;
+        double dz = frame.z - z;
+        double lastY = y;
+
+        x = frame.x;
+        y = frame.y;
+        z = frame.z;
+        entity.yaw = frame.yaw;
+        entity.flags = frame.flags;
+        update();
+
+        if (!moved) {
+            moved = true;
+            return;
+        }
+
+        entity.moveDist += (float) Math.sqrt(dx * dx + dy * dy + dz * dz) * 0.6F;
+
+        if (is(MovementTrace.ON_GROUND) || is(MovementTrace.UNDERWATER) || is(MovementTrace.CLIMBING)) {
+            entity.fallDistance = 0;
+        } else if (y < lastY) {
+            entity.fallDistance -= y - lastY;
+        }
+    }
+
+    /**
+     * Sets everything the generators read to values recorded from a real entity.
+     */
+    public void set(double x, double y, double z, float yaw, int flags,
+            float moveDist, float fallDistance, Vec3 motion, float strafe, float width, float height) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.width = width;
+        this.height = height;
+        update();
+        entity.yaw = yaw;
+        entity.flags = flags;
+        entity.motion = motion;
+        entity.moveDist = moveDist;
+        entity.fallDistance = fallDistance;
+        entity.xxa = strafe;
+    }
+
+    /**
+     * The entity itself. Everything the generators read that isn't a field or a final getter is answered from here.
+     */
+    static final class Body extends LivingEntity {
+        private float yaw;
+        private int flags;
+        private Vec3 motion;
+
+        private Body() {
+            super(null, null);
+            throw new UnsupportedOperationException("Created without running a constructor");
+        }
+
+        boolean is(int flag) {
+            return (flags & flag) != 0;
+        }
+
+        @Override
+        public float getYRot() {
+            return yaw;
+        }
+
+        @Override
+        public boolean isOnGround() {
+            return is(MovementTrace.ON_GROUND);
+        }
+
+        @Override
+        public boolean onClimbable() {
+            return is(MovementTrace.CLIMBING);
+        }
+
+        @Override
+        public boolean isUnderWater() {
+            return is(MovementTrace.UNDERWATER);
+        }
+
+        @Override
+        public boolean isShiftKeyDown() {
+            return is(MovementTrace.SNEAKING);
+        }
+
+        @Override
+        public boolean isSprinting() {
+            return is(MovementTrace.SPRINTING);
+        }
+
+        @Override
+        public Vec3 getDeltaMovement() {
+            return motion;
+        }
+
+        @Override
+        public Iterable<ItemStack> getArmorSlots() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public ItemStack getItemBySlot(EquipmentSlot slot) {
+            return ItemStack.EMPTY;
+        }
+
+        @Override
+        public void setItemSlot(EquipmentSlot slot, ItemStack stack) { }
+
+        @Override
+        public HumanoidArm getMainArm() {
+            return HumanoidArm.RIGHT;
+        }
+    }
+}
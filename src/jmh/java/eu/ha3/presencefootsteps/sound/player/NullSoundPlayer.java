@@ -0,0 +1,34 @@
+package eu.ha3.presencefootsteps.sound.player;
+
+import eu.ha3.presencefootsteps.sound.Options;
+import eu.ha3.presencefootsteps.sound.State;
+import net.minecraft.world.entity.Entity;
+
+import java.util.Random;
+
+/**
+ * A sound player that only counts the sounds it's asked to play.
+ */
+public class NullSoundPlayer implements SoundPlayer {
+
+    private final Random rng = new Random(0);
+
+    private long played;
+
+    @Override
+    public void playSound(Entity location, String soundName, float volume, float pitch, State event, Options options) {
+        played++;
+    }
+
+    @Override
+    public Random getRNG() {
+        return rng;
+    }
+
+    @Override
+    public void think() {}
+
+    public long getPlayed() {
+        return played;
+    }
+}
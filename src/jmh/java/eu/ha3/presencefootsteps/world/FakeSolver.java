@@ -0,0 +1,69 @@
+package eu.ha3.presencefootsteps.world;
+
+import eu.ha3.presencefootsteps.sound.Options;
+import eu.ha3.presencefootsteps.sound.State;
+import eu.ha3.presencefootsteps.sound.acoustics.AcousticLibrary;
+import eu.ha3.presencefootsteps.sound.acoustics.AcousticSet;
+import eu.ha3.presencefootsteps.sound.acoustics.FixedAcoustic;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.Blocks;
+
+/**
+ * A solver that stands every entity on the same block, so step generators can run without a level.
+ *
+ * Plays associations and stopping conditions the same way as PFSolver.
+ */
+public class FakeSolver implements Solver {
+
+    private final AcousticLibrary acoustics;
+
+    private final AcousticSet surface;
+
+    private final AcousticSet swim;
+
+    /**
+     * The acoustics have to be loaded already, as both the surface and the stopping condition are resolved up front.
+     */
+    public FakeSolver(AcousticLibrary acoustics, String surface) {
+        this.acoustics = acoustics;
+        this.surface = acoustics.compile(surface);
+        this.swim = acoustics.compile(FixedAcoustic.SWIM.getAcousticName());
+    }
+
+    @Override
+    public void playAssociation(Entity ply, Association assos, State eventType) {
+        if (assos.isNotEmitter()) {
+            return;
+        }
+
+        acoustics.playAcoustic(assos.at(ply), eventType, Options.EMPTY);
+    }
+
+    @Override
+    public Association findAssociation(AssociationCache cache, Entity ply, double verticalOffsetAsMinus, boolean isRightFoot) {
+        return new Association(Blocks.STONE.defaultBlockState(), BlockPos.ZERO).with(surface);
+    }
+
+    @Override
+    public Association findAssociation(AssociationCache cache, Level w, BlockPos pos, String strategy) {
+        return Association.NOT_EMITTER;
+    }
+
+    @Override
+    public boolean playStoppingConditions(Entity ply) {
+        if (!hasStoppingConditions(ply)) {
+            return false;
+        }
+
+        acoustics.playAcoustic(ply, swim, ply.isUnderWater() ? State.SWIM : State.WALK, Options.EMPTY);
+
+        return true;
+    }
+
+    @Override
+    public boolean hasStoppingConditions(Entity ply) {
+        return ply.isUnderWater();
+    }
+}
@@ -0,0 +1,107 @@
+package eu.ha3.presencefootsteps.world;
+
+import eu.ha3.presencefootsteps.Headless;
+import net.minecraft.core.Registry;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.SoundType;
+import net.minecraft.world.level.block.state.BlockState;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a single lookup in each of the maps the solver consults,
+ * cycling through every registered block state, sound type and entity type.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LookupBenchmark {
+
+    @Param({"true", "false"})
+    public boolean baked;
+
+    private StateLookup blockMap;
+    private PrimitiveLookup primitiveMap;
+    private GolemLookup golemMap;
+
+    private BlockState[] states;
+    private SoundType[] sounds;
+    private String[] soundSubstrates;
+    private EntityType<?>[] entityTypes;
+
+    private int stateIndex;
+    private int soundIndex;
+    private int entityIndex;
+
+    @Setup
+    public void setup() throws IOException {
+        Headless.bootstrap();
+
+        blockMap = new StateLookup();
+        primitiveMap = new PrimitiveLookup();
+        golemMap = new GolemLookup();
+
+        load(blockMap, "blockmap.json");
+        load(primitiveMap, "primitivemap.json");
+        load(golemMap, "golemmap.json");
+
+        if (baked) {
+            blockMap.bake();
+        }
+
+        List<BlockState> states = new ArrayList<>();
+        Set<SoundType> sounds = new LinkedHashSet<>();
+        for (BlockState state : Block.BLOCK_STATE_REGISTRY) {
+            states.add(state);
+            sounds.add(state.getSoundType());
+        }
+        this.states = states.toArray(new BlockState[0]);
+        this.sounds = sounds.toArray(new SoundType[0]);
+        soundSubstrates = new String[this.sounds.length];
+        for (int i = 0; i < this.sounds.length; i++) {
+            soundSubstrates[i] = String.format(Locale.ENGLISH, "%.2f_%.2f", this.sounds[i].volume, this.sounds[i].pitch);
+        }
+
+        List<EntityType<?>> types = new ArrayList<>();
+        Registry.ENTITY_TYPE.forEach(types::add);
+        entityTypes = types.toArray(new EntityType<?>[0]);
+    }
+
+    private static void load(Loadable lookup, String file) throws IOException {
+        try (Reader reader = Headless.openConfig(file)) {
+            lookup.load(reader);
+        }
+    }
+
+    @Benchmark
+    public String stateLookup() {
+        stateIndex = (stateIndex + 1) % states.length;
+        return blockMap.getAssociation(states[stateIndex], Lookup.EMPTY_SUBSTRATE);
+    }
+
+    @Benchmark
+    public String stateLookupCarpet() {
+        stateIndex = (stateIndex + 1) % states.length;
+        return blockMap.getAssociation(states[stateIndex], Lookup.CARPET_SUBSTRATE);
+    }
+
+    @Benchmark
+    public String primitiveLookup() {
+        soundIndex = (soundIndex + 1) % sounds.length;
+        return primitiveMap.getAssociation(sounds[soundIndex], soundSubstrates[soundIndex]);
+    }
+
+    @Benchmark
+    public String golemLookup() {
+        entityIndex = (entityIndex + 1) % entityTypes.length;
+        return golemMap.getAssociation(entityTypes[entityIndex], Lookup.EMPTY_SUBSTRATE);
+    }
+}
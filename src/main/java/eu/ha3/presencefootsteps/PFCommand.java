@@ -0,0 +1,97 @@
+package eu.ha3.presencefootsteps;
+
+import com.mojang.brigadier.CommandDispatcher;
+import eu.ha3.presencefootsteps.sound.FootstepMetrics;
+import eu.ha3.presencefootsteps.sound.SoundEngine;
+import eu.ha3.presencefootsteps.sound.TraceRecorder;
+import eu.ha3.presencefootsteps.util.BlockReport;
+import net.minecraft.ChatFormatting;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.commands.Commands;
+import net.minecraft.network.chat.TextComponent;
+import net.minecraft.network.chat.TranslatableComponent;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * The client-side /pf command.
+ *
+ * /pf record start|stop writes the inputs of every simulated entity to a trace that can be replayed offline.
+ * /pf metrics [reset] prints (and logs) what the footstep pipeline has been doing and how long it took.
+ * /pf metrics start|stop times every association and acoustic in between, which is otherwise only done while the debug screen is open.
+ */
+public final class PFCommand {
+
+    private PFCommand() {}
+
+    public static void register(CommandDispatcher<CommandSourceStack> dispatcher) {
+        dispatcher.register(Commands.literal("pf")
+            .then(Commands.literal("record")
+                .then(Commands.literal("start").executes(context -> startRecording(context.getSource())))
+                .then(Commands.literal("stop").executes(context -> stopRecording(context.getSource())))
+            )
+            .then(Commands.literal("metrics")
+                .executes(context -> dumpMetrics(context.getSource()))
+                .then(Commands.literal("reset").executes(context -> resetMetrics(context.getSource())))
+                .then(Commands.literal("start").executes(context -> setCollectingMetrics(context.getSource(), true)))
+                .then(Commands.literal("stop").executes(context -> setCollectingMetrics(context.getSource(), false)))
+            )
+        );
+    }
+
+    private static int startRecording(CommandSourceStack source) {
+        SoundEngine engine = PresenceFootsteps.getInstance().getEngine();
+        Path file = BlockReport.getUniqueFileName(engine.getTraceDirectory(), "trace", ".pftrace");
+
+        try {
+            engine.getRecorder().start(file);
+        } catch (IOException e) {
+            PresenceFootsteps.logger.error("Could not start recording to " + file, e);
+            source.sendFailure(new TranslatableComponent("pf.record.error", e.getMessage()));
+            return 0;
+        }
+
+        source.sendSuccess(new TranslatableComponent("pf.record.start", file.getFileName().toString()), false);
+        return 1;
+    }
+
+    private static int dumpMetrics(CommandSourceStack source) {
+        FootstepMetrics metrics = PresenceFootsteps.getInstance().getEngine().getMetrics();
+
+        source.sendSuccess(new TranslatableComponent("pf.metrics.title").withStyle(ChatFormatting.YELLOW), false);
+        for (String line : metrics.dump()) {
+            PresenceFootsteps.logger.info(line);
+            source.sendSuccess(new TextComponent(line), false);
+        }
+        return 1;
+    }
+
+    private static int resetMetrics(CommandSourceStack source) {
+        PresenceFootsteps.getInstance().getEngine().getMetrics().reset();
+        source.sendSuccess(new TranslatableComponent("pf.metrics.reset"), false);
+        return 1;
+    }
+
+    private static int setCollectingMetrics(CommandSourceStack source, boolean collecting) {
+        PresenceFootsteps.getInstance().getEngine().getMetrics().setCollecting(collecting);
+        source.sendSuccess(new TranslatableComponent(collecting ? "pf.metrics.start" : "pf.metrics.stop"), false);
+        return 1;
+    }
+
+    private static int stopRecording(CommandSourceStack source) {
+        TraceRecorder recorder = PresenceFootsteps.getInstance().getEngine().getRecorder();
+
+        if (!recorder.isRecording()) {
+            source.sendFailure(new TranslatableComponent("pf.record.idle"));
+            return 0;
+        }
+
+        Path file = recorder.getFile();
+        int frames = recorder.stop();
+
+        source.sendSuccess(new TranslatableComponent("pf.record.stop", frames, file.getFileName().toString())
+                .withStyle(ChatFormatting.GREEN), false);
+        return 1;
+    }
+}
@@ -16,6 +16,26 @@ public class PFConfig extends JsonFile {
 
     private boolean global = true;
 
+    private int fullDetailDistance = 8;
+
+    private int reducedDetailDistance = 12;
+
+    private int reducedDetailInterval = 2;
+
+    private int distantDetailInterval = 4;
+
+    private int maxSimulatedEntities = 32;
+
+    private boolean roundRobin = true;
+
+    private int maxPendingSounds = 128;
+
+    private int maxVoices = 32;
+
+    private boolean hotReload = false;
+
+    private boolean parallelSimulation = false;
+
     private transient final PresenceFootsteps pf;
 
     public PFConfig(Path file, PresenceFootsteps pf) {
@@ -43,8 +63,6 @@ public class PFConfig extends JsonFile {
         if (loco != getLocomotion()) {
             stance = loco.name();
             save();
-
-            pf.getEngine().reload();
         }
 
         return loco;
@@ -66,6 +84,72 @@ public class PFConfig extends JsonFile {
         return getVolume() > 0;
     }
 
+    /**
+     * Entities closer than this many blocks are simulated every frame.
+     */
+    public int getFullDetailDistance() {
+        return Math.max(0, fullDetailDistance);
+    }
+
+    /**
+     * Entities closer than this many blocks (but further than the full detail distance)
+     * are simulated every {@link #getReducedDetailInterval()} frames.
+     * Anything further away is simulated every {@link #getDistantDetailInterval()} frames.
+     */
+    public int getReducedDetailDistance() {
+        return Math.max(getFullDetailDistance(), reducedDetailDistance);
+    }
+
+    public int getReducedDetailInterval() {
+        return Math.max(1, reducedDetailInterval);
+    }
+
+    public int getDistantDetailInterval() {
+        return Math.max(getReducedDetailInterval(), distantDetailInterval);
+    }
+
+    /**
+     * The most entities that will be simulated in a single frame, not counting players.
+     */
+    public int getMaxSimulatedEntities() {
+        return Math.max(1, maxSimulatedEntities);
+    }
+
+    /**
+     * Whether entities that missed out because of the frame budget get to go first next frame.
+     */
+    public boolean getRoundRobin() {
+        return roundRobin;
+    }
+
+    /**
+     * The most delayed sounds that may be waiting to play at any one time.
+     */
+    public int getMaxPendingSounds() {
+        return Math.max(1, maxPendingSounds);
+    }
+
+    /**
+     * The most footstep sounds that may be playing at once. The least important ones are dropped past this.
+     */
+    public int getMaxVoices() {
+        return Math.max(1, maxVoices);
+    }
+
+    /**
+     * Whether to watch the config directory for override files and reload them as they change.
+     */
+    public boolean getHotReload() {
+        return hotReload;
+    }
+
+    /**
+     * Whether to simulate entities on several threads at once when there are a lot of them about.
+     */
+    public boolean getParallelSimulation() {
+        return parallelSimulation;
+    }
+
     public int getVolume() {
         return Mth.clamp(volume, 0, 100);
     }
@@ -1,42 +1,114 @@
 package eu.ha3.presencefootsteps;
 
+import eu.ha3.presencefootsteps.sound.FootstepMetrics;
+import eu.ha3.presencefootsteps.sound.Isolator;
 import eu.ha3.presencefootsteps.sound.SoundEngine;
+import eu.ha3.presencefootsteps.sound.generator.Locomotion;
 import eu.ha3.presencefootsteps.world.Emitter;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.LivingEntity;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.client.Minecraft;
 import net.minecraft.world.phys.BlockHitResult;
 import net.minecraft.world.phys.HitResult;
 
+import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 public class PFDebugHud {
 
     private final SoundEngine engine;
 
+    /**
+     * The lines for whatever's under the crosshair, kept until the target, its locomotion or the isolator changes
+     * so the association maps aren't built again on every frame.
+     */
+    private final List<String> blockLines = new ArrayList<>();
+    private final List<String> entityLines = new ArrayList<>();
+
+    @Nullable
+    private BlockState lastState;
+    @Nullable
+    private Entity lastEntity;
+    @Nullable
+    private Locomotion lastLocomotion;
+    @Nullable
+    private Isolator lastIsolator;
+
     public PFDebugHud(SoundEngine engine) {
         this.engine = engine;
     }
 
     public void render(HitResult blockHit, HitResult fluidHit, List<String> list) {
         Minecraft client = Minecraft.getInstance();
+        Isolator isolator = engine.getIsolator();
+
+        engine.getMetrics().keepDetailed();
+        renderMetrics(engine.getMetrics(), list);
+
+        if (isolator != lastIsolator) {
+            lastIsolator = isolator;
+            lastState = null;
+            lastEntity = null;
+        }
 
         if (blockHit.getType() == HitResult.Type.BLOCK) {
             BlockState state = client.level.getBlockState(((BlockHitResult)blockHit).getBlockPos());
 
-            renderSoundList("PF Sounds",
-                    engine.getIsolator().getBlockMap().getAssociations(state),
-                    list);
+            if (state != lastState) {
+                lastState = state;
+                blockLines.clear();
+                renderSoundList("PF Sounds", isolator.getBlockMap().getAssociations(state), blockLines);
+            }
+
+            list.addAll(blockLines);
         }
 
-        if (client.crosshairPickEntity != null) {
-            renderSoundList("PF Golem Sounds",
-                    engine.getIsolator().getGolemMap().getAssociations(client.crosshairPickEntity.getType()),
-                    list);
-            list.add(engine.getIsolator().getLocomotionMap().lookup(client.crosshairPickEntity).getDisplayName());
+        Entity entity = client.crosshairPickEntity;
+
+        if (entity != null) {
+            // players follow the stance picked in the options, which can change without the target changing
+            Locomotion locomotion = entity instanceof LivingEntity
+                    ? engine.getLocomotion((LivingEntity)entity)
+                    : isolator.getLocomotionMap().lookup(entity);
+
+            if (entity != lastEntity || locomotion != lastLocomotion) {
+                lastEntity = entity;
+                lastLocomotion = locomotion;
+                entityLines.clear();
+                renderSoundList("PF Golem Sounds", isolator.getGolemMap().getAssociations(entity.getType()), entityLines);
+                entityLines.add(locomotion.getDisplayName());
+            }
+
+            list.addAll(entityLines);
+        } else {
+            // don't hold on to an entity that's left the world
+            lastEntity = null;
         }
     }
 
+    private void renderMetrics(FootstepMetrics metrics, List<String> list) {
+        list.add("");
+        list.add(String.format(Locale.ROOT, "PF Frame: %.1fus (last %.1fus)",
+                metrics.getRollingFrameNanos() / 1000D, metrics.getLastFrameNanos() / 1000D));
+
+        list.add(String.format(Locale.ROOT, "targets %.0f sim %.0f assoc %.0f acoustics %.0f delayed %.0f",
+                metrics.getLastFrameNanos(FootstepMetrics.Phase.TARGETS) / 1000D,
+                metrics.getLastFrameNanos(FootstepMetrics.Phase.SIMULATION) / 1000D,
+                metrics.getLastFrameNanos(FootstepMetrics.Phase.ASSOCIATIONS) / 1000D,
+                metrics.getLastFrameNanos(FootstepMetrics.Phase.ACOUSTICS) / 1000D,
+                metrics.getLastFrameNanos(FootstepMetrics.Phase.DELAYED) / 1000D));
+
+        list.add(String.format(Locale.ROOT, "PF Entities: %.1f, Pending: %.1f, Voices: %.1f",
+                metrics.getRollingTrackedEntities(), metrics.getRollingPendingSounds(), metrics.getRollingActiveVoices()));
+
+        list.add(String.format(Locale.ROOT, "PF Cache: %.0f%% hits, Sounds: %d played, %d dropped",
+                metrics.getRollingCacheHitRate() * 100, metrics.getSoundsPlayed(), metrics.getSoundsDropped()));
+    }
+
     private void renderSoundList(String title, Map<String, String> sounds, List<String> list) {
         list.add("");
         list.add(title);
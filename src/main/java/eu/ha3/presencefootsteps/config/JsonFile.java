@@ -8,16 +8,44 @@ import eu.ha3.presencefootsteps.PresenceFootsteps;
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.Reader;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Very simple file loaded from and to json.
  *
+ * Saving is done in the background. Changes made in quick succession are written out
+ * together once they stop coming in, and anything still pending is written when the game shuts down.
+ *
  * @author Sollace
  */
 public abstract class JsonFile {
 
+    /**
+     * How long, in milliseconds, to wait for further changes before writing.
+     */
+    private static final long SAVE_DELAY = 500;
+
+    private static final ScheduledExecutorService WRITER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "Presence Footsteps Config Writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final Set<JsonFile> PENDING = ConcurrentHashMap.newKeySet();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(JsonFile::flushAll, "Presence Footsteps Config Flush"));
+    }
+
     protected transient final Gson gson = new GsonBuilder()
             .registerTypeAdapter(getClass(), (InstanceCreator<JsonFile>)t -> this)
             .setPrettyPrinting()
@@ -25,6 +53,13 @@ public abstract class JsonFile {
 
     private transient Path file;
 
+    private transient ScheduledFuture<?> scheduledSave;
+
+    /**
+     * Held while writing, kept separate from this instance so scheduling a save never waits on the disk.
+     */
+    private transient final Object writeLock = new Object();
+
     JsonFile() { }
 
     public JsonFile(Path file) {
@@ -47,14 +82,62 @@ public abstract class JsonFile {
         gson.fromJson(reader, getClass());
     }
 
+    /**
+     * Schedules this file to be written. Returns immediately.
+     */
     public final void save() {
+        if (file == null) {
+            return;
+        }
+
+        synchronized (this) {
+            if (scheduledSave != null) {
+                scheduledSave.cancel(false);
+            }
+
+            PENDING.add(this);
+            scheduledSave = WRITER.schedule(this::flush, SAVE_DELAY, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Writes this file right away if it has any unsaved changes.
+     */
+    public final void flush() {
+        if (PENDING.remove(this)) {
+            write();
+        }
+    }
+
+    /**
+     * Writes every file that has unsaved changes.
+     */
+    public static void flushAll() {
+        PENDING.forEach(JsonFile::flush);
+    }
+
+    private void write() {
+        synchronized (writeLock) {
+            writeFile();
+        }
+    }
+
+    private void writeFile() {
         try {
             Files.createDirectories(file.getParent());
-            try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+
+            try (BufferedWriter writer = Files.newBufferedWriter(temp)) {
                 gson.toJson(this, writer);
             }
+
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
         } catch (IOException e) {
-            e.printStackTrace();
+            PresenceFootsteps.logger.error("Could not save " + file, e);
         }
     }
 }
@@ -1,10 +1,16 @@
 package eu.ha3.presencefootsteps.events;
 
+import eu.ha3.presencefootsteps.PFCommand;
 import eu.ha3.presencefootsteps.PFOptionsScreen;
 import eu.ha3.presencefootsteps.PresenceFootsteps;
 import net.minecraft.client.Minecraft;
 import net.minecraft.world.entity.player.Player;
+import net.minecraftforge.client.event.RegisterClientCommandsEvent;
+import net.minecraftforge.event.TagsUpdatedEvent;
 import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.entity.EntityJoinWorldEvent;
+import net.minecraftforge.event.entity.EntityLeaveWorldEvent;
+import net.minecraftforge.event.world.WorldEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.common.Mod;
 
@@ -28,4 +34,38 @@ public final class ForgeEventSubscriber {
 
         //updateNotifier.attempt();
     }
+
+    @SubscribeEvent
+    public static void onRegisterClientCommands(final RegisterClientCommandsEvent event) {
+        PFCommand.register(event.getDispatcher());
+    }
+
+    @SubscribeEvent
+    public static void onTagsUpdated(final TagsUpdatedEvent event) {
+        // the integrated server fires this too, but only the client's copy of the tags matters to us
+        if (PresenceFootsteps.engine != null && Minecraft.getInstance().isSameThread()) {
+            PresenceFootsteps.engine.onTagsUpdated();
+        }
+    }
+
+    @SubscribeEvent
+    public static void onEntityJoinWorld(final EntityJoinWorldEvent event) {
+        if (PresenceFootsteps.engine != null && event.getWorld().isClientSide()) {
+            PresenceFootsteps.engine.onEntityAdded(event.getEntity());
+        }
+    }
+
+    @SubscribeEvent
+    public static void onEntityLeaveWorld(final EntityLeaveWorldEvent event) {
+        if (PresenceFootsteps.engine != null && event.getWorld().isClientSide()) {
+            PresenceFootsteps.engine.onEntityRemoved(event.getEntity());
+        }
+    }
+
+    @SubscribeEvent
+    public static void onWorldUnload(final WorldEvent.Unload event) {
+        if (PresenceFootsteps.engine != null && event.getWorld().isClientSide()) {
+            PresenceFootsteps.engine.onWorldUnloaded();
+        }
+    }
 }
@@ -1,6 +1,7 @@
 package eu.ha3.presencefootsteps.mixins;
 
 import eu.ha3.presencefootsteps.PresenceFootsteps;
+import eu.ha3.presencefootsteps.world.AssociationCache;
 import net.minecraft.client.multiplayer.ClientPacketListener;
 import net.minecraft.network.protocol.game.ClientGamePacketListener;
 import net.minecraft.network.protocol.game.ClientboundSoundPacket;
@@ -18,4 +19,15 @@ public abstract class MClientPlayNetworkHandler implements ClientGamePacketListe
             info.cancel();
         }
     }
+
+    @Inject(method = {
+            "handleBlockUpdate",
+            "handleChunkBlocksUpdate",
+            "handleExplosion",
+            "handleLevelChunkWithLight",
+            "handleForgetLevelChunk"
+    }, at = @At("TAIL"))
+    public void onHandleBlockChanges(CallbackInfo info) {
+        AssociationCache.invalidateAll();
+    }
 }
@@ -0,0 +1,106 @@
+package eu.ha3.presencefootsteps.sound;
+
+import eu.ha3.presencefootsteps.PresenceFootsteps;
+import net.minecraft.resources.ResourceLocation;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watches the config directory for override files and reloads whichever resource they belong to.
+ * Only runs while hot reloading is turned on.
+ */
+class ConfigWatcher implements Runnable {
+
+    /**
+     * How long, in milliseconds, to let a file settle after a change. Editors often save in more than one step.
+     */
+    private static final long SETTLE_TIME = 50;
+
+    private final Path directory;
+
+    private final Map<String, ResourceLocation> files;
+
+    private final Consumer<ResourceLocation> reloader;
+
+    private Thread thread;
+
+    ConfigWatcher(Path directory, Map<String, ResourceLocation> files, Consumer<ResourceLocation> reloader) {
+        this.directory = directory;
+        this.files = files;
+        this.reloader = reloader;
+    }
+
+    public synchronized void start() {
+        if (thread == null) {
+            thread = new Thread(this, "Presence Footsteps Config Watcher");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Stops watching. Changes made from then on are ignored until it's started again.
+     */
+    public synchronized void stop() {
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            Files.createDirectories(directory);
+
+            try (WatchService watcher = directory.getFileSystem().newWatchService()) {
+                directory.register(watcher, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+                PresenceFootsteps.logger.info("Watching " + directory + " for changes");
+
+                while (true) {
+                    WatchKey key = watcher.take();
+                    Thread.sleep(SETTLE_TIME);
+
+                    Set<ResourceLocation> changed = new LinkedHashSet<>();
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.context() instanceof Path) {
+                            ResourceLocation id = files.get(((Path)event.context()).getFileName().toString());
+
+                            if (id != null) {
+                                changed.add(id);
+                            }
+                        }
+                    }
+
+                    if (Thread.currentThread().isInterrupted()) {
+                        return;
+                    }
+
+                    if (!key.reset()) {
+                        PresenceFootsteps.logger.warn("Stopped watching " + directory);
+                        return;
+                    }
+
+                    for (ResourceLocation id : changed) {
+                        try {
+                            reloader.accept(id);
+                        } catch (Exception e) {
+                            PresenceFootsteps.logger.error("Error encountered reloading " + id, e);
+                        }
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            PresenceFootsteps.logger.error("Could not watch " + directory + " for changes", e);
+        }
+    }
+}
@@ -0,0 +1,402 @@
+package eu.ha3.presencefootsteps.sound;
+
+import eu.ha3.presencefootsteps.sound.player.ImmediateSoundPlayer;
+import eu.ha3.presencefootsteps.util.RollingAverage;
+import eu.ha3.presencefootsteps.world.AssociationCache;
+import net.minecraft.util.profiling.ProfilerFiller;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts and times what the footstep pipeline does each frame.
+ *
+ * Every phase is given its own profiler section, so it shows up in the vanilla profiler and pie chart,
+ * and the time spent in it is kept as a running total and a histogram of how long each call took.
+ * Simulation time includes the associations and acoustics inside it. Those can be timed from the
+ * simulation threads too, where only their totals are kept, so with parallel simulation on they can add up
+ * to more than the simulation took. Only the client thread touches the profiler.
+ *
+ * Associations and acoustics are looked up many times per entity, so they're only timed while someone is
+ * looking: while the debug screen shows the metrics, or between /pf metrics start and stop. Otherwise the
+ * lookups are just counted.
+ */
+public final class FootstepMetrics {
+
+    /**
+     * The shortest time with a histogram bucket of its own, as a power of two. Anything faster is counted in the first.
+     */
+    private static final int FIRST_BUCKET_SHIFT = 8;
+
+    private static final int BUCKETS = 16;
+
+    /**
+     * How many frames the rolling averages cover.
+     */
+    private static final int WINDOW = 100;
+
+    private final LongAdder[] nanos = new LongAdder[Phase.VALUES.length];
+    private final LongAdder[] calls = new LongAdder[Phase.VALUES.length];
+    private final AtomicLongArray[] histograms = new AtomicLongArray[Phase.VALUES.length];
+
+    private final long[] frameStartNanos = new long[Phase.VALUES.length];
+    private final long[] lastFrameNanos = new long[Phase.VALUES.length];
+
+    private final LongAdder associations = new LongAdder();
+
+    /**
+     * Whether associations and acoustics are being timed this frame. Read from the simulation threads.
+     */
+    private volatile boolean detailed;
+
+    private boolean collecting;
+
+    private boolean viewed;
+
+    private long frames;
+    private long entities;
+
+    private long frameNanos;
+    private long frameStart;
+    private long lastFrame;
+
+    private final RollingAverage rollingFrameNanos = new RollingAverage(WINDOW);
+    private final RollingAverage rollingTracked = new RollingAverage(WINDOW);
+    private final RollingAverage rollingPending = new RollingAverage(WINDOW);
+    private final RollingAverage rollingVoices = new RollingAverage(WINDOW);
+    private final RollingAverage rollingHits = new RollingAverage(WINDOW);
+    private final RollingAverage rollingMisses = new RollingAverage(WINDOW);
+
+    private long lastHits = AssociationCache.getTotalHits();
+    private long lastMisses = AssociationCache.getTotalMisses();
+
+    private long hitsBefore;
+    private long missesBefore;
+    private long playedBefore;
+    private long droppedBefore;
+
+    @Nullable
+    private ProfilerFiller profiler;
+
+    @Nullable
+    private volatile Thread clientThread;
+
+    FootstepMetrics() {
+        for (int i = 0; i < Phase.VALUES.length; i++) {
+            nanos[i] = new LongAdder();
+            calls[i] = new LongAdder();
+            histograms[i] = new AtomicLongArray(BUCKETS);
+        }
+        reset();
+    }
+
+    /**
+     * Starts the frame's profiler section. Must be called on the client thread.
+     */
+    void beginFrame(ProfilerFiller profiler) {
+        this.profiler = profiler;
+        clientThread = Thread.currentThread();
+        profiler.push("presencefootsteps");
+
+        detailed = collecting || viewed;
+        viewed = false;
+
+        for (Phase phase : Phase.VALUES) {
+            frameStartNanos[phase.ordinal()] = nanos[phase.ordinal()].sum();
+        }
+        frameStart = System.nanoTime();
+    }
+
+    /**
+     * Ends the frame's profiler section and samples the gauges the rolling averages are kept for.
+     *
+     * @param simulated The number of entities whose step generators were run.
+     * @param tracked   The number of entities near enough to be considered.
+     * @param pending   The number of delayed sounds waiting to play.
+     * @param voices    The number of our sounds playing.
+     */
+    void endFrame(int simulated, int tracked, int pending, int voices) {
+        lastFrame = System.nanoTime() - frameStart;
+        frameNanos += lastFrame;
+        frames++;
+        entities += simulated;
+
+        long hits = AssociationCache.getTotalHits();
+        long misses = AssociationCache.getTotalMisses();
+
+        rollingFrameNanos.add(lastFrame);
+        rollingTracked.add(tracked);
+        rollingPending.add(pending);
+        rollingVoices.add(voices);
+        rollingHits.add(hits - lastHits);
+        rollingMisses.add(misses - lastMisses);
+
+        lastHits = hits;
+        lastMisses = misses;
+
+        for (Phase phase : Phase.VALUES) {
+            lastFrameNanos[phase.ordinal()] = nanos[phase.ordinal()].sum() - frameStartNanos[phase.ordinal()];
+        }
+
+        if (profiler != null) {
+            profiler.pop();
+        }
+        profiler = null;
+        clientThread = null;
+    }
+
+    /**
+     * Starts timing a phase, and pushes its profiler section when called on the client thread during a frame.
+     *
+     * @return the time to pass to {@link #end}
+     */
+    public long begin(Phase phase) {
+        if (profiler != null && Thread.currentThread() == clientThread) {
+            profiler.push(phase.section);
+        }
+        return System.nanoTime();
+    }
+
+    public void end(Phase phase, long start) {
+        long elapsed = System.nanoTime() - start;
+        int i = phase.ordinal();
+
+        nanos[i].add(elapsed);
+        calls[i].increment();
+        histograms[i].incrementAndGet(getBucket(elapsed));
+
+        if (profiler != null && Thread.currentThread() == clientThread) {
+            profiler.pop();
+        }
+    }
+
+    void countAssociation() {
+        associations.increment();
+    }
+
+    /**
+     * Whether each association and acoustic should be timed, or only counted.
+     */
+    boolean isDetailed() {
+        return detailed;
+    }
+
+    /**
+     * Times associations and acoustics in the next frame too. Called each frame the debug screen shows the metrics.
+     */
+    public void keepDetailed() {
+        viewed = true;
+    }
+
+    /**
+     * Sets whether associations and acoustics are timed regardless of the debug screen, for the pf metrics command.
+     * Takes effect from the next frame.
+     */
+    public void setCollecting(boolean collecting) {
+        this.collecting = collecting;
+    }
+
+    private static int getBucket(long nanos) {
+        int log = 63 - Long.numberOfLeadingZeros(Math.max(1, nanos));
+        return Math.max(0, Math.min(BUCKETS - 1, log - FIRST_BUCKET_SHIFT));
+    }
+
+    /**
+     * Starts counting again from zero. Must be called on the client thread, outside of a frame.
+     */
+    public void reset() {
+        for (int i = 0; i < Phase.VALUES.length; i++) {
+            nanos[i].reset();
+            calls[i].reset();
+            lastFrameNanos[i] = 0;
+            for (int b = 0; b < BUCKETS; b++) {
+                histograms[i].set(b, 0);
+            }
+        }
+
+        associations.reset();
+        frames = 0;
+        entities = 0;
+        frameNanos = 0;
+        lastFrame = 0;
+
+        rollingFrameNanos.clear();
+        rollingTracked.clear();
+        rollingPending.clear();
+        rollingVoices.clear();
+        rollingHits.clear();
+        rollingMisses.clear();
+
+        hitsBefore = AssociationCache.getTotalHits();
+        missesBefore = AssociationCache.getTotalMisses();
+        playedBefore = ImmediateSoundPlayer.getTotalPlayed();
+        droppedBefore = ImmediateSoundPlayer.getTotalDropped();
+    }
+
+    public long getFrames() {
+        return frames;
+    }
+
+    public long getEntitiesSimulated() {
+        return entities;
+    }
+
+    public long getAssociationsResolved() {
+        return associations.sum();
+    }
+
+    public long getCacheHits() {
+        return AssociationCache.getTotalHits() - hitsBefore;
+    }
+
+    public long getCacheMisses() {
+        return AssociationCache.getTotalMisses() - missesBefore;
+    }
+
+    public long getSoundsPlayed() {
+        return ImmediateSoundPlayer.getTotalPlayed() - playedBefore;
+    }
+
+    public long getSoundsDropped() {
+        return ImmediateSoundPlayer.getTotalDropped() - droppedBefore;
+    }
+
+    /**
+     * The time the whole pipeline took in the last frame.
+     */
+    public long getLastFrameNanos() {
+        return lastFrame;
+    }
+
+    public long getLastFrameNanos(Phase phase) {
+        return lastFrameNanos[phase.ordinal()];
+    }
+
+    public long getAverageFrameNanos() {
+        return frames == 0 ? 0 : frameNanos / frames;
+    }
+
+    public long getAverageFrameNanos(Phase phase) {
+        return frames == 0 ? 0 : nanos[phase.ordinal()].sum() / frames;
+    }
+
+    /**
+     * Gets the time a given share of the calls to a phase finished within, rounded up to the next histogram bucket.
+     */
+    public long getPercentileNanos(Phase phase, double percentile) {
+        AtomicLongArray histogram = histograms[phase.ordinal()];
+        long total = calls[phase.ordinal()].sum();
+
+        if (total == 0) {
+            return 0;
+        }
+
+        long wanted = (long)Math.ceil(total * percentile);
+        long seen = 0;
+
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += histogram.get(b);
+            if (seen >= wanted) {
+                return 1L << (b + FIRST_BUCKET_SHIFT + 1);
+            }
+        }
+
+        return 1L << (BUCKETS + FIRST_BUCKET_SHIFT);
+    }
+
+    public double getRollingFrameNanos() {
+        return rollingFrameNanos.getAverage();
+    }
+
+    public double getRollingTrackedEntities() {
+        return rollingTracked.getAverage();
+    }
+
+    public double getRollingPendingSounds() {
+        return rollingPending.getAverage();
+    }
+
+    public double getRollingActiveVoices() {
+        return rollingVoices.getAverage();
+    }
+
+    /**
+     * The share of association lookups served from the cache over the last few frames.
+     */
+    public double getRollingCacheHitRate() {
+        double hits = rollingHits.getAverage();
+        double total = hits + rollingMisses.getAverage();
+        return total == 0 ? 0 : hits / total;
+    }
+
+    public double getCacheHitRate() {
+        long hits = getCacheHits();
+        long total = hits + getCacheMisses();
+        return total == 0 ? 0 : hits / (double)total;
+    }
+
+    /**
+     * Writes everything out as lines of text, for the pf metrics command.
+     */
+    public List<String> dump() {
+        List<String> lines = new ArrayList<>();
+
+        lines.add(String.format(Locale.ROOT, "%d frames, %.1fus per frame on average, %.1fus in the last",
+                frames, getAverageFrameNanos() / 1000D, lastFrame / 1000D));
+
+        for (Phase phase : Phase.VALUES) {
+            lines.add(String.format(Locale.ROOT, "  %s: %.1fus per frame, %d calls, p50 < %.1fus, p99 < %.1fus",
+                    phase.section,
+                    getAverageFrameNanos(phase) / 1000D,
+                    calls[phase.ordinal()].sum(),
+                    getPercentileNanos(phase, 0.5) / 1000D,
+                    getPercentileNanos(phase, 0.99) / 1000D));
+        }
+
+        lines.add(String.format(Locale.ROOT, "%d entities simulated, %d associations resolved, %.1f%% cache hits",
+                entities, getAssociationsResolved(), getCacheHitRate() * 100));
+        lines.add(String.format(Locale.ROOT, "%d sounds played, %d dropped",
+                getSoundsPlayed(), getSoundsDropped()));
+
+        return lines;
+    }
+
+    public enum Phase {
+        /**
+         * Finding the entities to simulate and scheduling them.
+         */
+        TARGETS("targets"),
+        /**
+         * Running the step generators.
+         */
+        SIMULATION("simulation"),
+        /**
+         * Working out what each foot is standing on.
+         */
+        ASSOCIATIONS("associations"),
+        /**
+         * Turning associations into sounds.
+         */
+        ACOUSTICS("acoustics"),
+        /**
+         * Playing the delayed and deferred sounds that are due, and handing the frame's sounds to the sound manager.
+         */
+        DELAYED("delayed");
+
+        static final Phase[] VALUES = values();
+
+        private final String section;
+
+        Phase(String section) {
+            this.section = section;
+        }
+
+        public String getSection() {
+            return section;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package eu.ha3.presencefootsteps.sound;
+
+import eu.ha3.presencefootsteps.PFConfig;
+import net.minecraft.world.entity.LivingEntity;
+import net.minecraft.world.entity.player.Player;
+
+import java.util.Arrays;
+
+/**
+ * Decides which of the tracked entities get simulated on a given frame.
+ *
+ * Players, and anything within the full detail distance, are simulated every frame.
+ * Entities further out are only simulated every few frames, staggered by their id so
+ * they don't all land on the same frame. Everything other than players counts towards
+ * a per-frame budget, which goes to the full detail entities first, nearest first.
+ *
+ * When there are more full detail entities than the budget allows, the nearest of them are still
+ * simulated every frame and a share of the budget is passed around the rest in turn, so each one
+ * is simulated at a reduced rate rather than not at all. With round-robin enabled the more distant
+ * entities that were cut off by the budget are the first to be considered on the next frame.
+ */
+class FootstepScheduler {
+
+    /**
+     * When the full detail entities don't fit in the budget, one in this many slots is passed around
+     * the ones that didn't fit instead of going to the nearest.
+     */
+    private static final int ROTATING_SHARE = 4;
+
+    private LivingEntity[] scheduled = new LivingEntity[64];
+    private int scheduledCount;
+
+    private long frame;
+
+    private int cursor;
+
+    private int skippedCount;
+
+    /**
+     * The full detail entities of the current frame, and their distances, for sorting nearest first.
+     */
+    private LivingEntity[] nearby = new LivingEntity[64];
+    private double[] nearbyDistances = new double[64];
+    private int nearbyCount;
+
+    /**
+     * Where the rotating slots start from, among the full detail entities that didn't fit in the budget.
+     */
+    private int nearbyCursor;
+
+    public void schedule(Player player, TargetTracker tracker, PFConfig config) {
+        Arrays.fill(scheduled, 0, scheduledCount, null);
+        scheduledCount = 0;
+        skippedCount = 0;
+        frame++;
+
+        LivingEntity[] targets = tracker.getTargets();
+        int count = tracker.getTargetCount();
+
+        if (count == 0) {
+            return;
+        }
+
+        int budget = config.getMaxSimulatedEntities();
+        double fullDetail = square(config.getFullDetailDistance());
+        double reducedDetail = square(config.getReducedDetailDistance());
+        int reducedInterval = config.getReducedDetailInterval();
+        int distantInterval = config.getDistantDetailInterval();
+
+        int start = config.getRoundRobin() ? cursor % count : 0;
+        int firstSkipped = -1;
+
+        // Nearby entities go first so they are the last to be cut by the budget
+        for (int n = 0; n < count; n++) {
+            int i = (start + n) % count;
+            LivingEntity entity = targets[i];
+
+            if (entity instanceof Player) {
+                add(entity);
+            } else {
+                double distance = entity.distanceToSqr(player);
+
+                if (distance <= fullDetail) {
+                    addNearby(entity, distance);
+                }
+            }
+        }
+
+        if (nearbyCount <= budget) {
+            for (int n = 0; n < nearbyCount; n++) {
+                add(nearby[n]);
+            }
+            budget -= nearbyCount;
+        } else {
+            sortNearby();
+
+            int rotating = Math.max(1, budget / ROTATING_SHARE);
+            int fixed = budget - rotating;
+            int waiting = nearbyCount - fixed;
+
+            for (int n = 0; n < fixed; n++) {
+                add(nearby[n]);
+            }
+
+            // the rest share what's left of the budget in turn, so every one of them gets a frame every so often
+            nearbyCursor %= waiting;
+            for (int n = 0; n < rotating; n++) {
+                add(nearby[fixed + (nearbyCursor + n) % waiting]);
+            }
+            nearbyCursor += rotating;
+
+            skippedCount += waiting - rotating;
+            budget = 0;
+        }
+
+        Arrays.fill(nearby, 0, nearbyCount, null);
+        nearbyCount = 0;
+
+        for (int n = 0; n < count; n++) {
+            int i = (start + n) % count;
+            LivingEntity entity = targets[i];
+
+            if (entity instanceof Player) {
+                continue;
+            }
+
+            double distance = entity.distanceToSqr(player);
+
+            if (distance <= fullDetail) {
+                continue;
+            }
+
+            int interval = distance <= reducedDetail ? reducedInterval : distantInterval;
+
+            if ((frame + entity.getId()) % interval != 0) {
+                continue;
+            }
+
+            if (budget > 0) {
+                budget--;
+                add(entity);
+            } else {
+                skippedCount++;
+                if (firstSkipped == -1) {
+                    firstSkipped = i;
+                }
+            }
+        }
+
+        if (firstSkipped != -1) {
+            cursor = firstSkipped;
+        }
+    }
+
+    private void add(LivingEntity entity) {
+        if (scheduledCount == scheduled.length) {
+            scheduled = Arrays.copyOf(scheduled, scheduledCount * 2);
+        }
+
+        scheduled[scheduledCount++] = entity;
+    }
+
+    private void addNearby(LivingEntity entity, double distance) {
+        if (nearbyCount == nearby.length) {
+            nearby = Arrays.copyOf(nearby, nearbyCount * 2);
+            nearbyDistances = Arrays.copyOf(nearbyDistances, nearbyCount * 2);
+        }
+
+        nearby[nearbyCount] = entity;
+        nearbyDistances[nearbyCount++] = distance;
+    }
+
+    /**
+     * Insertion sort, nearest first. Only done when the budget can't cover every full detail entity,
+     * and the order they were tracked in barely changes between frames, so it's usually close to sorted.
+     */
+    private void sortNearby() {
+        for (int i = 1; i < nearbyCount; i++) {
+            LivingEntity entity = nearby[i];
+            double distance = nearbyDistances[i];
+            int j = i - 1;
+
+            while (j >= 0 && nearbyDistances[j] > distance) {
+                nearby[j + 1] = nearby[j];
+                nearbyDistances[j + 1] = nearbyDistances[j];
+                j--;
+            }
+
+            nearby[j + 1] = entity;
+            nearbyDistances[j + 1] = distance;
+        }
+    }
+
+    private static double square(double value) {
+        return value * value;
+    }
+
+    /**
+     * The entities to simulate this frame. Only the first {@link #getScheduledCount()} slots are filled.
+     */
+    public LivingEntity[] getScheduled() {
+        return scheduled;
+    }
+
+    public int getScheduledCount() {
+        return scheduledCount;
+    }
+
+    /**
+     * The number of the frame last scheduled. Counts up by one every time entities are scheduled.
+     */
+    public long getFrame() {
+        return frame;
+    }
+
+    /**
+     * The number of entities that were due this frame but went over the budget.
+     */
+    public int getSkippedCount() {
+        return skippedCount;
+    }
+}
@@ -2,8 +2,12 @@ package eu.ha3.presencefootsteps.sound;
 
 import eu.ha3.presencefootsteps.config.Variator;
 import eu.ha3.presencefootsteps.sound.acoustics.AcousticLibrary;
+import eu.ha3.presencefootsteps.sound.acoustics.AcousticSet;
+import eu.ha3.presencefootsteps.sound.acoustics.FixedAcoustic;
 import eu.ha3.presencefootsteps.sound.generator.Locomotion;
 import eu.ha3.presencefootsteps.sound.player.StepSoundPlayer;
+import eu.ha3.presencefootsteps.util.Clock;
+import eu.ha3.presencefootsteps.world.GolemGrid;
 import eu.ha3.presencefootsteps.world.Index;
 import eu.ha3.presencefootsteps.world.Lookup;
 import eu.ha3.presencefootsteps.world.Solver;
@@ -15,6 +19,11 @@ import net.minecraft.world.entity.EntityType;
 public interface Isolator {
     AcousticLibrary getAcoustics();
 
+    /**
+     * Gets one of the acoustics played by name, already resolved against this isolator's acoustics.
+     */
+    AcousticSet getAcoustic(FixedAcoustic acoustic);
+
     Solver getSolver();
 
     Index<Entity, Locomotion> getLocomotionMap();
@@ -28,4 +37,8 @@ public interface Isolator {
     StepSoundPlayer getStepPlayer();
 
     Variator getVariator();
+
+    Clock getClock();
+
+    GolemGrid getGolemGrid();
 }
\ No newline at end of file
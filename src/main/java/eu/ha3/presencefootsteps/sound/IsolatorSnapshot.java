@@ -0,0 +1,286 @@
+package eu.ha3.presencefootsteps.sound;
+
+import eu.ha3.presencefootsteps.PresenceFootsteps;
+import eu.ha3.presencefootsteps.config.Variator;
+import eu.ha3.presencefootsteps.sound.acoustics.AcousticsSnapshot;
+import eu.ha3.presencefootsteps.world.Loadable;
+import eu.ha3.presencefootsteps.world.StateLookupSnapshot;
+import net.minecraft.core.Registry;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.level.block.Block;
+import net.minecraftforge.fml.ModList;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static eu.ha3.presencefootsteps.util.BinaryUtil.readString;
+import static eu.ha3.presencefootsteps.util.BinaryUtil.writeString;
+
+/**
+ * A binary copy of everything a reload loaded from json, so the next reload can skip parsing it
+ * when nothing has changed.
+ *
+ * The file is keyed on a digest of the snapshot format, the mod version, the raw resource files
+ * and the block and entity registries, so a snapshot written by another version is never read back.
+ * The block map is stored already parsed and baked, see {@link StateLookupSnapshot}.
+ */
+class IsolatorSnapshot {
+
+    private static final int MAGIC = 0x50465350; // PFSP
+    private static final int VERSION = 2;
+
+    private static final Field[] VARIATOR_FIELDS = Arrays.stream(Variator.class.getFields())
+            .filter(f -> !Modifier.isStatic(f.getModifiers()))
+            .sorted(Comparator.comparing(Field::getName))
+            .toArray(Field[]::new);
+
+    private final Path file;
+
+    IsolatorSnapshot(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Computes the key a snapshot of the given resources is stored under.
+     */
+    byte[] digest(Map<ResourceLocation, List<byte[]>> resources) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        update(digest, VERSION);
+        update(digest, getModVersion());
+
+        resources.forEach((id, contents) -> {
+            update(digest, id.toString());
+            update(digest, contents.size());
+            contents.forEach(bytes -> {
+                update(digest, bytes.length);
+                digest.update(bytes);
+            });
+        });
+
+        update(digest, Block.BLOCK_STATE_REGISTRY.size());
+        for (ResourceLocation id : Registry.BLOCK.keySet()) {
+            update(digest, id.toString());
+            update(digest, Registry.BLOCK.getId(Registry.BLOCK.get(id)));
+        }
+        for (ResourceLocation id : Registry.ENTITY_TYPE.keySet()) {
+            update(digest, id.toString());
+        }
+
+        return digest.digest();
+    }
+
+    private static String getModVersion() {
+        ModList mods = ModList.get();
+
+        if (mods == null) {
+            return "";
+        }
+
+        return mods.getModContainerById(PresenceFootsteps.modId)
+                .map(mod -> mod.getModInfo().getVersion().toString())
+                .orElse("");
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte)0);
+    }
+
+    private static void update(MessageDigest digest, int value) {
+        digest.update((byte)(value >>> 24));
+        digest.update((byte)(value >>> 16));
+        digest.update((byte)(value >>> 8));
+        digest.update((byte)value);
+    }
+
+    /**
+     * Loads the snapshot into an empty isolator, baking its block map again only if the stored one can't be used.
+     *
+     * @return False if there's no snapshot for the given digest, in which case the isolator must be thrown away.
+     */
+    boolean load(byte[] digest, PFIsolator isolator) {
+        if (!Files.isRegularFile(file)) {
+            return false;
+        }
+
+        try {
+            // read onto the heap rather than mapped, so nothing holds the file open when the next save replaces it
+            ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file));
+
+            if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+                return false;
+            }
+
+            byte[] stored = new byte[in.getInt()];
+            in.get(stored);
+
+            if (!Arrays.equals(stored, digest)) {
+                return false;
+            }
+
+            boolean baked = StateLookupSnapshot.read(in, isolator.getBlockMap());
+            readEntries(in, isolator.getGolemMap());
+            readEntries(in, isolator.getPrimitiveMap());
+            readEntries(in, isolator.getLocomotionMap());
+            readVariator(in, isolator.getVariator());
+            AcousticsSnapshot.read(in, isolator.getAcoustics());
+
+            if (!baked) {
+                isolator.getBlockMap().bake();
+            }
+
+            return true;
+        } catch (Exception e) {
+            PresenceFootsteps.logger.warn("Could not read snapshot " + file + ", resources will be parsed again", e);
+            return false;
+        }
+    }
+
+    /**
+     * Bakes the recorded isolator's block map, then writes out what was recorded while parsing the resources for the given digest.
+     */
+    void bakeAndSave(byte[] digest, Recording recording) {
+        byte[] tags = StateLookupSnapshot.digestTags();
+        recording.isolator.getBlockMap().bake();
+
+        Path temp = null;
+
+        try {
+            Files.createDirectories(file.getParent());
+            // each save gets its own temporary file so overlapping reloads don't write over each other
+            temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(digest.length);
+                out.write(digest);
+
+                StateLookupSnapshot.write(out, recording.isolator.getBlockMap(), tags);
+                recording.golemMap.write(out);
+                recording.primitiveMap.write(out);
+                recording.locomotionMap.write(out);
+                writeVariator(out, recording.isolator.getVariator());
+                AcousticsSnapshot.write(out, recording.isolator.getAcoustics());
+            }
+
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (Exception e) {
+            PresenceFootsteps.logger.warn("Could not write snapshot " + file, e);
+
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) { }
+            }
+        }
+    }
+
+    private static void readEntries(ByteBuffer in, Loadable loadable) {
+        for (int i = in.getInt(); i > 0; i--) {
+            String key = readString(in);
+            loadable.add(key, readString(in));
+        }
+    }
+
+    private static void writeVariator(DataOutputStream out, Variator variator) throws IOException, IllegalAccessException {
+        out.writeInt(VARIATOR_FIELDS.length);
+        for (Field field : VARIATOR_FIELDS) {
+            if (field.getType() == int.class) {
+                out.writeInt(field.getInt(variator));
+            } else if (field.getType() == float.class) {
+                out.writeFloat(field.getFloat(variator));
+            } else if (field.getType() == boolean.class) {
+                out.writeBoolean(field.getBoolean(variator));
+            } else {
+                throw new IOException("Unsupported variator field " + field.getName());
+            }
+        }
+    }
+
+    private static void readVariator(ByteBuffer in, Variator variator) throws IOException, IllegalAccessException {
+        if (in.getInt() != VARIATOR_FIELDS.length) {
+            throw new IOException("Variator fields have changed");
+        }
+
+        for (Field field : VARIATOR_FIELDS) {
+            if (field.getType() == int.class) {
+                field.setInt(variator, in.getInt());
+            } else if (field.getType() == float.class) {
+                field.setFloat(variator, in.getFloat());
+            } else if (field.getType() == boolean.class) {
+                field.setBoolean(variator, in.get() != 0);
+            } else {
+                throw new IOException("Unsupported variator field " + field.getName());
+            }
+        }
+    }
+
+    /**
+     * Captures the entries added to an isolator's lookups while its resources are being parsed.
+     * The block map is written out from the isolator itself, so it isn't recorded.
+     */
+    static final class Recording {
+        private final PFIsolator isolator;
+
+        final Recorder golemMap;
+        final Recorder primitiveMap;
+        final Recorder locomotionMap;
+
+        Recording(PFIsolator isolator) {
+            this.isolator = isolator;
+            golemMap = new Recorder(isolator.getGolemMap());
+            primitiveMap = new Recorder(isolator.getPrimitiveMap());
+            locomotionMap = new Recorder(isolator.getLocomotionMap());
+        }
+    }
+
+    static final class Recorder implements Loadable {
+        private final Loadable target;
+        private final List<String> entries = new ArrayList<>();
+
+        Recorder(Loadable target) {
+            this.target = target;
+        }
+
+        @Override
+        public void add(String key, String value) {
+            entries.add(key);
+            entries.add(value);
+            target.add(key, value);
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeInt(entries.size() / 2);
+            for (String entry : entries) {
+                writeString(out, entry);
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package eu.ha3.presencefootsteps.sound;
+
+import eu.ha3.presencefootsteps.world.Association;
+import eu.ha3.presencefootsteps.world.AssociationCache;
+import eu.ha3.presencefootsteps.world.Solver;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.level.Level;
+
+/**
+ * Times the associations a solver finds and the acoustics it plays.
+ * Each call is only timed while the metrics are detailed, otherwise associations are just counted.
+ */
+final class MeasuredSolver implements Solver {
+
+    private final Solver solver;
+
+    private final FootstepMetrics metrics;
+
+    MeasuredSolver(Solver solver, FootstepMetrics metrics) {
+        this.solver = solver;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void playAssociation(Entity ply, Association assos, State eventType) {
+        if (!metrics.isDetailed()) {
+            solver.playAssociation(ply, assos, eventType);
+            return;
+        }
+
+        long start = metrics.begin(FootstepMetrics.Phase.ACOUSTICS);
+        try {
+            solver.playAssociation(ply, assos, eventType);
+        } finally {
+            metrics.end(FootstepMetrics.Phase.ACOUSTICS, start);
+        }
+    }
+
+    @Override
+    public Association findAssociation(AssociationCache cache, Entity ply, double verticalOffsetAsMinus, boolean isRightFoot) {
+        if (!metrics.isDetailed()) {
+            metrics.countAssociation();
+            return solver.findAssociation(cache, ply, verticalOffsetAsMinus, isRightFoot);
+        }
+
+        long start = metrics.begin(FootstepMetrics.Phase.ASSOCIATIONS);
+        try {
+            return solver.findAssociation(cache, ply, verticalOffsetAsMinus, isRightFoot);
+        } finally {
+            metrics.countAssociation();
+            metrics.end(FootstepMetrics.Phase.ASSOCIATIONS, start);
+        }
+    }
+
+    @Override
+    public Association findAssociation(AssociationCache cache, Level w, BlockPos pos, String strategy) {
+        if (!metrics.isDetailed()) {
+            metrics.countAssociation();
+            return solver.findAssociation(cache, w, pos, strategy);
+        }
+
+        long start = metrics.begin(FootstepMetrics.Phase.ASSOCIATIONS);
+        try {
+            return solver.findAssociation(cache, w, pos, strategy);
+        } finally {
+            metrics.countAssociation();
+            metrics.end(FootstepMetrics.Phase.ASSOCIATIONS, start);
+        }
+    }
+
+    @Override
+    public boolean playStoppingConditions(Entity ply) {
+        if (!metrics.isDetailed()) {
+            return solver.playStoppingConditions(ply);
+        }
+
+        long start = metrics.begin(FootstepMetrics.Phase.ACOUSTICS);
+        try {
+            return solver.playStoppingConditions(ply);
+        } finally {
+            metrics.end(FootstepMetrics.Phase.ACOUSTICS, start);
+        }
+    }
+
+    @Override
+    public boolean hasStoppingConditions(Entity ply) {
+        return solver.hasStoppingConditions(ply);
+    }
+}
@@ -1,36 +1,127 @@
 package eu.ha3.presencefootsteps.sound;
 
-import java.util.HashMap;
+/**
+ * Extra parameters passed along with an acoustic as it's played.
+ *
+ * Values are held in fixed slots so they can be passed down the acoustic chain
+ * without boxing. Instances are mutable so callers can hold on to one and reuse it,
+ * as long as it isn't shared between threads.
+ */
+public final class Options {
 
-public interface Options {
+    public static final Options EMPTY = new Options(true);
 
-    Options EMPTY = new Options() {
-        @Override
-        public boolean containsKey(Object option) {
-            return false;
+    private static final int GLIDING_VOLUME = 1;
+    private static final int GLIDING_PITCH = 2;
+    private static final int DELAY = 4;
+    private static final int SKIPPABLE = 8;
+
+    private final boolean immutable;
+
+    private int present;
+
+    private float glidingVolume;
+    private float glidingPitch;
+
+    private long delayMin;
+    private long delayMax;
+
+    public Options() {
+        this(false);
+    }
+
+    private Options(boolean immutable) {
+        this.immutable = immutable;
+    }
+
+    private Options mutate() {
+        if (immutable) {
+            throw new UnsupportedOperationException("Options.EMPTY cannot be modified");
         }
+        return this;
+    }
+
+    /**
+     * Clears every option so this instance can be reused.
+     */
+    public Options reset() {
+        mutate().present = 0;
+        return this;
+    }
 
-        @Override
-        public long get(String option) {
-            return 0;
+    /**
+     * Creates a copy of these options that can be held on to after this instance is reused.
+     */
+    public Options copy() {
+        if (immutable) {
+            return this;
         }
-    };
 
-    static Options singular(String key, Object value) {
-        MapOptions options = new MapOptions();
-        options.put(key, value);
-        return options;
+        Options copy = new Options();
+        copy.present = present;
+        copy.glidingVolume = glidingVolume;
+        copy.glidingPitch = glidingPitch;
+        copy.delayMin = delayMin;
+        copy.delayMax = delayMax;
+        return copy;
+    }
+
+    public Options withGlidingVolume(float volume) {
+        mutate().glidingVolume = volume;
+        present |= GLIDING_VOLUME;
+        return this;
     }
 
-    boolean containsKey(Object option);
+    public Options withGlidingPitch(float pitch) {
+        mutate().glidingPitch = pitch;
+        present |= GLIDING_PITCH;
+        return this;
+    }
 
-    long get(String option);
+    public Options withDelay(long min, long max) {
+        mutate().delayMin = min;
+        delayMax = max;
+        present |= DELAY;
+        return this;
+    }
 
-    final class MapOptions extends HashMap<String, Object> implements Options {
-        private static final long serialVersionUID = 1L;
-        @Override
-        public long get(String option) {
-            return ((Number)super.get(option)).longValue();
-        }
+    /**
+     * Marks a delayed sound as one that is played no matter how late it is.
+     */
+    public Options skippable() {
+        mutate().present |= SKIPPABLE;
+        return this;
+    }
+
+    public boolean hasGlidingVolume() {
+        return (present & GLIDING_VOLUME) != 0;
+    }
+
+    public float getGlidingVolume() {
+        return glidingVolume;
+    }
+
+    public boolean hasGlidingPitch() {
+        return (present & GLIDING_PITCH) != 0;
+    }
+
+    public float getGlidingPitch() {
+        return glidingPitch;
+    }
+
+    public boolean hasDelay() {
+        return (present & DELAY) != 0;
+    }
+
+    public long getDelayMin() {
+        return delayMin;
+    }
+
+    public long getDelayMax() {
+        return delayMax;
+    }
+
+    public boolean isSkippable() {
+        return (present & SKIPPABLE) != 0;
     }
 }
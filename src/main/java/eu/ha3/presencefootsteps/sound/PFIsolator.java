@@ -2,43 +2,182 @@ package eu.ha3.presencefootsteps.sound;
 
 import eu.ha3.presencefootsteps.config.Variator;
 import eu.ha3.presencefootsteps.sound.acoustics.AcousticLibrary;
+import eu.ha3.presencefootsteps.sound.acoustics.AcousticSet;
+import eu.ha3.presencefootsteps.sound.acoustics.FixedAcoustic;
 import eu.ha3.presencefootsteps.sound.acoustics.AcousticsPlayer;
 import eu.ha3.presencefootsteps.sound.generator.Locomotion;
 import eu.ha3.presencefootsteps.sound.player.SoundPlayer;
 import eu.ha3.presencefootsteps.sound.player.StepSoundPlayer;
+import eu.ha3.presencefootsteps.util.Clock;
 import eu.ha3.presencefootsteps.world.*;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.entity.Entity;
 import net.minecraft.world.entity.EntityType;
 import net.minecraft.world.level.block.SoundType;
+import net.minecraft.resources.ResourceLocation;
 
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
-public class PFIsolator implements Isolator, SoundPlayer {
+public class PFIsolator implements Isolator, SoundPlayer, StepSoundPlayer {
 
     private final SoundEngine engine;
 
-    private final Variator variator = new Variator();
+    private final Variator variator;
 
-    private final Index<Entity, Locomotion> locomotionMap = new LocomotionLookup();
+    private final Index<Entity, Locomotion> locomotionMap;
 
-    private final Lookup<EntityType<?>> golemMap = new GolemLookup();
+    private final Lookup<EntityType<?>> golemMap;
 
-    private final Lookup<BlockState> blockMap = new StateLookup();
+    private final Lookup<BlockState> blockMap;
 
-    private final Lookup<SoundType> primitiveMap = new PrimitiveLookup();
+    private final Lookup<SoundType> primitiveMap;
 
-    private final AcousticsPlayer acoustics = new AcousticsPlayer(this);
+    private final AcousticsPlayer acoustics;
 
-    private final Solver solver = new PFSolver(this);
+    private final Solver solver;
+
+    /**
+     * The fixed acoustics resolved against this isolator's library, indexed by ordinal.
+     */
+    private volatile AcousticSet[] fixedAcoustics = FixedAcoustic.empty();
+
+    /**
+     * Sounds requested while entities are being simulated off the client thread, waiting to be played on it.
+     */
+    private final Queue<Runnable> deferredSounds = new ConcurrentLinkedQueue<>();
+
+    private volatile boolean deferringSounds;
+
+    /**
+     * The resources this isolator was loaded from, not counting overrides.
+     */
+    private Map<ResourceLocation, List<byte[]>> packResources = Collections.emptyMap();
 
     public PFIsolator(SoundEngine engine) {
+        this(engine, new Variator(), new LocomotionLookup(), new GolemLookup(), new StateLookup(), new PrimitiveLookup(), null);
+    }
+
+    private PFIsolator(SoundEngine engine, Variator variator, Index<Entity, Locomotion> locomotionMap,
+            Lookup<EntityType<?>> golemMap, Lookup<BlockState> blockMap, Lookup<SoundType> primitiveMap,
+            @Nullable AcousticsPlayer acoustics) {
         this.engine = engine;
+        this.variator = variator;
+        this.locomotionMap = locomotionMap;
+        this.golemMap = golemMap;
+        this.blockMap = blockMap;
+        this.primitiveMap = primitiveMap;
+        this.solver = new MeasuredSolver(new PFSolver(this), engine.getMetrics());
+        // copies keep the player, so the sounds it has pending and the voices it has playing survive a reload
+        this.acoustics = acoustics == null
+                ? new AcousticsPlayer(this, engine.getClock(), engine.getConfig()::getMaxPendingSounds, engine.getConfig()::getMaxVoices)
+                : acoustics;
+    }
+
+    PFIsolator withVariator(Variator variator) {
+        return copy(new PFIsolator(engine, variator, locomotionMap, golemMap, blockMap, primitiveMap, acoustics));
+    }
+
+    PFIsolator withLocomotionMap(Index<Entity, Locomotion> locomotionMap) {
+        return copy(new PFIsolator(engine, variator, locomotionMap, golemMap, blockMap, primitiveMap, acoustics));
+    }
+
+    PFIsolator withGolemMap(Lookup<EntityType<?>> golemMap) {
+        return copy(new PFIsolator(engine, variator, locomotionMap, golemMap, blockMap, primitiveMap, acoustics));
+    }
+
+    PFIsolator withBlockMap(Lookup<BlockState> blockMap) {
+        return copy(new PFIsolator(engine, variator, locomotionMap, golemMap, blockMap, primitiveMap, acoustics));
+    }
+
+    PFIsolator withPrimitiveMap(Lookup<SoundType> primitiveMap) {
+        return copy(new PFIsolator(engine, variator, locomotionMap, golemMap, blockMap, primitiveMap, acoustics));
+    }
+
+    /**
+     * Creates a copy of this isolator with an empty acoustic library, ready to be loaded again.
+     * Unlike the other copies, it gets a player of its own.
+     */
+    PFIsolator withoutAcoustics() {
+        return copy(new PFIsolator(engine, variator, locomotionMap, golemMap, blockMap, primitiveMap, null));
+    }
+
+    /**
+     * Plays this isolator's acoustics through it rather than the isolator it was copied from.
+     * Must be called on the client thread when it replaces that isolator.
+     */
+    void claimAcoustics() {
+        acoustics.setPlayer(this);
+    }
+
+    private PFIsolator copy(PFIsolator copy) {
+        copy.packResources = packResources;
+        copy.fixedAcoustics = fixedAcoustics;
+        return copy;
+    }
+
+    Map<ResourceLocation, List<byte[]>> getPackResources() {
+        return packResources;
+    }
+
+    void setPackResources(Map<ResourceLocation, List<byte[]>> packResources) {
+        this.packResources = packResources;
+    }
+
+    /**
+     * Resolves the associations in every lookup to this isolator's acoustics.
+     * Has to be done again whenever either changes.
+     */
+    void compileLookups() {
+        fixedAcoustics = FixedAcoustic.compile(acoustics);
+        blockMap.compile(acoustics);
+        golemMap.compile(acoustics);
+        primitiveMap.compile(acoustics);
+    }
+
+    /**
+     * Sets whether sounds should be queued up instead of played, for while other threads are generating them.
+     */
+    void setDeferringSounds(boolean deferring) {
+        if (acoustics.getPlayer() != this) {
+            // the acoustics would go straight to a player that isn't deferring, from whichever thread asked for them
+            throw new IllegalStateException("Acoustics are not played through this isolator");
+        }
+        deferringSounds = deferring;
+    }
+
+    @Override
+    public void playSound(Entity location, String soundName, float volume, float pitch, State event, Options options) {
+        if (deferringSounds) {
+            Options copy = options.copy();
+            deferredSounds.add(() -> playSound(location, soundName, volume, pitch, event, copy));
+            return;
+        }
+
+        acoustics.playSound(location, soundName, volume * engine.getGlobalVolume(), pitch, event, options);
     }
 
     @Override
-    public void playSound(Entity location, String soundName, float volume, float pitch, Options options) {
-        acoustics.playSound(location, soundName, volume * engine.getGlobalVolume(), pitch, options);
+    public void playStep(Association assos) {
+        if (deferringSounds) {
+            deferredSounds.add(() -> playStep(assos));
+            return;
+        }
+
+        acoustics.playStep(assos);
+    }
+
+    int getPendingSounds() {
+        return acoustics.getPendingSounds();
+    }
+
+    int getActiveVoices() {
+        return acoustics.getActiveVoices();
     }
 
     @Override
@@ -48,6 +187,11 @@ public class PFIsolator implements Isolator, SoundPlayer {
 
     @Override
     public void think() {
+        Runnable sound;
+        while ((sound = deferredSounds.poll()) != null) {
+            sound.run();
+        }
+
         acoustics.think();
     }
 
@@ -56,6 +200,11 @@ public class PFIsolator implements Isolator, SoundPlayer {
         return acoustics;
     }
 
+    @Override
+    public AcousticSet getAcoustic(FixedAcoustic acoustic) {
+        return fixedAcoustics[acoustic.ordinal()];
+    }
+
     @Override
     public Solver getSolver() {
         return solver;
@@ -83,11 +232,21 @@ public class PFIsolator implements Isolator, SoundPlayer {
 
     @Override
     public StepSoundPlayer getStepPlayer() {
-        return acoustics;
+        return this;
     }
 
     @Override
     public Variator getVariator() {
         return variator;
     }
+
+    @Override
+    public Clock getClock() {
+        return engine.getClock();
+    }
+
+    @Override
+    public GolemGrid getGolemGrid() {
+        return engine.getGolemGrid();
+    }
 }
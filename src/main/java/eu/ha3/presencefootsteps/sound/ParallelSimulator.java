@@ -0,0 +1,81 @@
+package eu.ha3.presencefootsteps.sound;
+
+import eu.ha3.presencefootsteps.sound.generator.StepSoundGenerator;
+import net.minecraft.world.entity.LivingEntity;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * Runs the step generators for a frame's entities on a pool of worker threads.
+ *
+ * The client thread waits for the workers to finish, so the level can't change while they're reading it.
+ * Sounds the generators ask for in the meantime are queued by the isolator and played
+ * on the client thread afterwards.
+ */
+class ParallelSimulator {
+
+    /**
+     * Below this many entities it isn't worth handing the work to other threads.
+     */
+    static final int MIN_ENTITIES = 8;
+
+    /**
+     * Each worker gets several smaller batches so one busy entity doesn't hold the rest up.
+     */
+    private static final int BATCHES_PER_THREAD = 4;
+
+    private ForkJoinPool pool;
+
+    private StepSoundGenerator[] generators = new StepSoundGenerator[64];
+
+    public void simulate(SoundEngine engine, PFIsolator isolator, LivingEntity[] targets, int count, long frame) {
+        if (generators.length < count) {
+            generators = Arrays.copyOf(generators, Math.max(count, generators.length * 2));
+        }
+
+        // generators are created and swapped on the client thread
+        for (int i = 0; i < count; i++) {
+            generators[i] = ((StepSoundSource) targets[i]).getStepGenerator(engine);
+            generators[i].setIsolator(isolator);
+            generators[i].setFrame(frame);
+        }
+
+        ForkJoinPool pool = getPool();
+        int batches = Math.min(count, pool.getParallelism() * BATCHES_PER_THREAD);
+        CompletableFuture<?>[] tasks = new CompletableFuture<?>[batches];
+
+        isolator.setDeferringSounds(true);
+        try {
+            for (int b = 0; b < batches; b++) {
+                int start = b * count / batches;
+                int end = (b + 1) * count / batches;
+
+                tasks[b] = CompletableFuture.runAsync(() -> {
+                    for (int i = start; i < end; i++) {
+                        generators[i].generateFootsteps(targets[i]);
+                    }
+                }, pool);
+            }
+
+            CompletableFuture.allOf(tasks).join();
+        } finally {
+            isolator.setDeferringSounds(false);
+            Arrays.fill(generators, 0, count, null);
+        }
+    }
+
+    private ForkJoinPool getPool() {
+        if (pool == null) {
+            pool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1), p -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+                thread.setName("Presence Footsteps Simulation-" + thread.getPoolIndex());
+                thread.setDaemon(true);
+                return thread;
+            }, null, false);
+        }
+        return pool;
+    }
+}
@@ -1,16 +1,25 @@
 package eu.ha3.presencefootsteps.sound;
 
+import com.minelittlepony.common.util.GamePaths;
 import eu.ha3.presencefootsteps.PFConfig;
 import eu.ha3.presencefootsteps.PresenceFootsteps;
 //import eu.ha3.presencefootsteps.mixins.IEntity;
 import eu.ha3.presencefootsteps.sound.acoustics.AcousticsJsonParser;
 import eu.ha3.presencefootsteps.sound.generator.Locomotion;
 import eu.ha3.presencefootsteps.sound.generator.StepSoundGenerator;
+import eu.ha3.presencefootsteps.config.Variator;
+import eu.ha3.presencefootsteps.util.Clock;
+import eu.ha3.presencefootsteps.world.AssociationCache;
+import eu.ha3.presencefootsteps.world.GolemGrid;
+import eu.ha3.presencefootsteps.world.GolemLookup;
+import eu.ha3.presencefootsteps.world.LocomotionLookup;
+import eu.ha3.presencefootsteps.world.PrimitiveLookup;
+import eu.ha3.presencefootsteps.world.StateLookup;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import net.minecraft.Util;
 import net.minecraft.client.Minecraft;
 import net.minecraft.world.entity.Entity;
 import net.minecraft.world.entity.LivingEntity;
-import net.minecraft.world.entity.FlyingMob;
-import net.minecraft.world.entity.animal.WaterAnimal;
 import net.minecraft.world.entity.player.Player;
 import net.minecraft.server.packs.resources.PreparableReloadListener;
 import net.minecraft.server.packs.resources.ResourceManager;
@@ -18,16 +27,27 @@ import net.minecraft.sounds.SoundSource;
 import net.minecraft.sounds.SoundEvent;
 import net.minecraft.sounds.SoundEvents;
 import net.minecraft.resources.ResourceLocation;
-import net.minecraft.world.phys.AABB;
+import net.minecraft.core.Registry;
 import net.minecraft.util.profiling.ProfilerFiller;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import net.minecraft.server.packs.resources.PreparableReloadListener.PreparationBarrier;
 
@@ -40,12 +60,69 @@ public class SoundEngine implements PreparableReloadListener {
     private static final ResourceLocation acoustics = new ResourceLocation("presencefootsteps", "config/acoustics.json");
     private static final ResourceLocation variator = new ResourceLocation("presencefootsteps", "config/variator.json");
 
+    private static final ResourceLocation[] RESOURCES = {blockmap, golemmap, primitivemap, locomotionmap, acoustics, variator};
+
     private static final ResourceLocation ID = new ResourceLocation("presencefootsteps", "sounds");
 
-    private PFIsolator isolator = new PFIsolator(this);
+    /**
+     * The player sounds we always play our own in place of, whether or not anything has been loaded yet.
+     */
+    private static final Set<SoundEvent> PLAYER_SOUNDS = new ReferenceOpenHashSet<>(new SoundEvent[] {
+            SoundEvents.PLAYER_SWIM,
+            SoundEvents.PLAYER_SPLASH,
+            SoundEvents.PLAYER_BIG_FALL,
+            SoundEvents.PLAYER_SMALL_FALL
+    });
+
+    private final Clock clock = new Clock();
+
+    private final FootstepMetrics metrics = new FootstepMetrics();
+
+    /**
+     * Replaced as a whole once a reload has finished preparing, so the client never sees one half loaded.
+     */
+    private volatile PFIsolator isolator = new PFIsolator(this);
+
+    /**
+     * Bumped whenever the isolator is replaced or a new reload starts, so a slower reload can't undo a newer one.
+     */
+    private int reloadCount;
+
+    /**
+     * Bumped whenever the client receives new block tags, so a reload that baked its block map
+     * against the old ones can tell it has to bake it again.
+     */
+    private volatile int tagGeneration;
+
+    private final TargetTracker tracker = new TargetTracker();
+
+    private final FootstepScheduler scheduler = new FootstepScheduler();
+
+    private final GolemGrid golems = new GolemGrid();
+
+    private final ParallelSimulator simulator = new ParallelSimulator();
+
+    private final TraceRecorder recorder = new TraceRecorder(this);
+
+    /**
+     * The vanilla step and fall sounds we play our own in place of, looked up by identity as sound packets come in.
+     * Rebuilt whenever an isolator is applied so it includes step sounds for blocks added by other mods.
+     * Read from the network thread, so it's replaced as a whole and never changed in place.
+     */
+    private volatile Set<SoundEvent> suppressedSounds = PLAYER_SOUNDS;
 
     private final PFConfig config;
 
+    private final IsolatorSnapshot snapshot = new IsolatorSnapshot(GamePaths.getGameDirectory().resolve("presencefootsteps").resolve("snapshot.bin"));
+
+    /**
+     * Where override files are read from. Each one is loaded after the resource packs' copies of the same file.
+     */
+    private final Path overrides = GamePaths.getConfigDirectory().resolve("presencefootsteps");
+
+    private final ConfigWatcher watcher = new ConfigWatcher(overrides, Arrays.stream(RESOURCES)
+            .collect(Collectors.toMap(SoundEngine::getFileName, id -> id)), this::reloadResource);
+
     public SoundEngine(PFConfig config) {
         this.config = config;
     }
@@ -54,13 +131,53 @@ public class SoundEngine implements PreparableReloadListener {
         return config.getVolume() / 100F;
     }
 
+    public PFConfig getConfig() {
+        return config;
+    }
+
+    public Clock getClock() {
+        return clock;
+    }
+
+    public FootstepMetrics getMetrics() {
+        return metrics;
+    }
+
+    public GolemGrid getGolemGrid() {
+        return golems;
+    }
+
+    public TraceRecorder getRecorder() {
+        return recorder;
+    }
+
+    /**
+     * Where traces started from the pf record command are written.
+     */
+    public Path getTraceDirectory() {
+        return GamePaths.getGameDirectory().resolve("presencefootsteps").resolve("traces");
+    }
+
     public Isolator getIsolator() {
         return isolator;
     }
 
     public void reload() {
+        if (config.getHotReload()) {
+            watcher.start();
+        } else {
+            watcher.stop();
+        }
+
         if (config.getEnabled()) {
-            reloadEverything(Minecraft.getInstance().getResourceManager());
+            int reload = ++reloadCount;
+            int tags = tagGeneration;
+            prepare(Minecraft.getInstance().getResourceManager(), Util.backgroundExecutor())
+                .thenAcceptAsync(prepared -> apply(reload, tags, prepared), Minecraft.getInstance())
+                .exceptionally(e -> {
+                    PresenceFootsteps.logger.error("Error encountered reloading PF sounds", e);
+                    return null;
+                });
         } else {
             shutdown();
         }
@@ -70,32 +187,63 @@ public class SoundEngine implements PreparableReloadListener {
         return config.getEnabled() && (client.isLocalServer() || config.getEnabledMP());
     }
 
-    private List<? extends Entity> getTargets(Player ply) {
-        if (config.getEnabledGlobal()) {
-            AABB box = new AABB(ply.blockPosition()).inflate(16);
+    public void onEntityAdded(Entity entity) {
+        tracker.add(entity);
+    }
 
-            return ply.level.getEntities((Entity)null, box, e ->
-                        e instanceof LivingEntity
-                    && !(e instanceof WaterAnimal)
-                    && !(e instanceof FlyingMob)
-                    && !e.isPassenger());
-        } else {
-            return ply.level.players();
-        }
+    public void onEntityRemoved(Entity entity) {
+        tracker.remove(entity);
+    }
+
+    public void onWorldUnloaded() {
+        tracker.clear();
+        recorder.stop();
     }
 
     public void onFrame(Minecraft client, Player player) {
         if (!client.isPaused() && isRunning(client)) {
-            getTargets(player).forEach(e -> {
-                StepSoundGenerator generator = ((StepSoundSource) e).getStepGenerator(this);
-                generator.setIsolator(isolator);
-                /*if (generator.generateFootsteps((LivingEntity)e)) {
-                    ((IEntity) e).setNextStepDistance(Integer.MAX_VALUE);
-                }*/
-                generator.generateFootsteps((LivingEntity)e);
-            });
+            metrics.beginFrame(client.getProfiler());
+            clock.update();
+
+            long start = metrics.begin(FootstepMetrics.Phase.TARGETS);
+            tracker.update(player, config.getEnabledGlobal());
+            scheduler.schedule(player, tracker, config);
+
+            if (scheduler.getScheduledCount() > 0) {
+                golems.update(player, isolator.getGolemMap());
+            }
+            metrics.end(FootstepMetrics.Phase.TARGETS, start);
+
+            PFIsolator isolator = this.isolator;
+            LivingEntity[] targets = scheduler.getScheduled();
+            int count = scheduler.getScheduledCount();
+
+            if (recorder.isRecording()) {
+                recorder.record(player.level, tracker.getTargets(), tracker.getTargetCount());
+            }
 
-            isolator.think(); // Delayed sounds
+            start = metrics.begin(FootstepMetrics.Phase.SIMULATION);
+            if (config.getParallelSimulation() && count >= ParallelSimulator.MIN_ENTITIES) {
+                simulator.simulate(this, isolator, targets, count, scheduler.getFrame());
+            } else {
+                for (int i = 0; i < count; i++) {
+                    LivingEntity e = targets[i];
+                    StepSoundGenerator generator = ((StepSoundSource) e).getStepGenerator(this);
+                    generator.setIsolator(isolator);
+                    generator.setFrame(scheduler.getFrame());
+                    /*if (generator.generateFootsteps(e)) {
+                        ((IEntity) e).setNextStepDistance(Integer.MAX_VALUE);
+                    }*/
+                    generator.generateFootsteps(e);
+                }
+            }
+            metrics.end(FootstepMetrics.Phase.SIMULATION, start);
+
+            start = metrics.begin(FootstepMetrics.Phase.DELAYED);
+            isolator.think(); // Delayed sounds, and any queued by the parallel simulation
+            metrics.end(FootstepMetrics.Phase.DELAYED, start);
+
+            metrics.endFrame(count, tracker.getTargetCount(), isolator.getPendingSounds(), isolator.getActiveVoices());
         }
     }
 
@@ -105,18 +253,21 @@ public class SoundEngine implements PreparableReloadListener {
             return false;
         }
 
-        if (event == SoundEvents.PLAYER_SWIM
-         || event == SoundEvents.PLAYER_SPLASH
-         || event == SoundEvents.PLAYER_BIG_FALL
-         || event == SoundEvents.PLAYER_SMALL_FALL) {
-            return true;
-        }
+        return suppressedSounds.contains(event);
+    }
 
-        String[] name = event.getLocation().getPath().split("\\.");
+    private static Set<SoundEvent> findSuppressedSounds() {
+        Set<SoundEvent> sounds = new ReferenceOpenHashSet<>(PLAYER_SOUNDS);
 
-        return name.length > 0
-                && "block".contentEquals(name[0])
-                && "step".contentEquals(name[name.length - 1]);
+        for (SoundEvent event : Registry.SOUND_EVENT) {
+            String path = event.getLocation().getPath();
+
+            if (path.startsWith("block.") && path.endsWith(".step")) {
+                sounds.add(event);
+            }
+        }
+
+        return sounds;
     }
 
     public Locomotion getLocomotion(LivingEntity entity) {
@@ -131,32 +282,172 @@ public class SoundEngine implements PreparableReloadListener {
             ProfilerFiller serverProfiler, ProfilerFiller clientProfiler,
             Executor serverExecutor, Executor clientExecutor) {
 
-        sync.getClass();
-        return sync.wait(null).thenRunAsync(() -> {
+        int reload = ++reloadCount;
+        int tags = tagGeneration;
+        return prepare(sender, serverExecutor)
+                .thenCompose(sync::wait)
+                .thenAcceptAsync(prepared -> {
             clientProfiler.startTick();
             clientProfiler.push("Reloading PF Sounds");
-            reloadEverything(sender);
+            apply(reload, tags, prepared);
             clientProfiler.pop();
             clientProfiler.endTick();
         }, clientExecutor);
     }
 
+    /**
+     * Loads every resource into a new isolator without touching the one in use.
+     *
+     * If the resources and registries are unchanged since the last time they were parsed,
+     * everything is read back from the snapshot instead. Otherwise each resource type is parsed
+     * in parallel on the given executor and a new snapshot is written.
+     */
+    public CompletableFuture<PFIsolator> prepare(ResourceManager manager, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            Map<ResourceLocation, List<byte[]>> packResources = new LinkedHashMap<>();
+            for (ResourceLocation id : RESOURCES) {
+                packResources.put(id, readResources(id, manager));
+            }
+            return packResources;
+        }, executor).thenComposeAsync(packResources -> {
+            Map<ResourceLocation, List<byte[]>> resources = new LinkedHashMap<>();
+            packResources.forEach((id, contents) -> resources.put(id, withOverride(id, contents)));
+
+            byte[] digest = snapshot.digest(resources);
+            PFIsolator cached = new PFIsolator(this);
+            cached.setPackResources(packResources);
+
+            if (snapshot.load(digest, cached)) {
+                cached.compileLookups();
+                return CompletableFuture.completedFuture(cached);
+            }
+
+            PFIsolator prepared = new PFIsolator(this);
+            prepared.setPackResources(packResources);
+            IsolatorSnapshot.Recording recording = new IsolatorSnapshot.Recording(prepared);
+
+            return CompletableFuture.allOf(
+                CompletableFuture.runAsync(() -> parseResources(resources.get(blockmap), prepared.getBlockMap()::load), executor),
+                CompletableFuture.runAsync(() -> parseResources(resources.get(golemmap), recording.golemMap::load), executor),
+                CompletableFuture.runAsync(() -> parseResources(resources.get(primitivemap), recording.primitiveMap::load), executor),
+                CompletableFuture.runAsync(() -> parseResources(resources.get(locomotionmap), recording.locomotionMap::load), executor),
+                CompletableFuture.runAsync(() -> parseResources(resources.get(acoustics), new AcousticsJsonParser(prepared.getAcoustics())::parse), executor),
+                CompletableFuture.runAsync(() -> parseResources(resources.get(variator), prepared.getVariator()::load), executor)
+            ).thenApplyAsync(v -> {
+                snapshot.bakeAndSave(digest, recording);
+                prepared.compileLookups();
+                return prepared;
+            }, executor);
+        }, executor);
+    }
+
+    /**
+     * Swaps in a prepared isolator. Must be called on the client thread.
+     *
+     * @param tags The tag generation from before the isolator was prepared.
+     */
+    private void apply(int reload, int tags, PFIsolator prepared) {
+        if (reload != reloadCount || !config.getEnabled()) {
+            return;
+        }
+
+        // new tags arrived while it was being prepared, and its block map may have been baked against the old ones
+        if (tags != tagGeneration) {
+            prepared.getBlockMap().bake();
+        }
+
+        isolator = prepared;
+        suppressedSounds = findSuppressedSounds();
+        AssociationCache.invalidateAll();
+    }
+
+    /**
+     * Reloads a single resource into the current isolator, keeping everything else as it is.
+     * Called from the config watcher thread when an override file changes.
+     */
+    private void reloadResource(ResourceLocation id) {
+        PFIsolator current = isolator;
+
+        if (!config.getHotReload() || !config.getEnabled() || !current.getPackResources().containsKey(id)) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        int tags = tagGeneration;
+        List<byte[]> contents = withOverride(id, current.getPackResources().get(id));
+        PFIsolator updated;
+
+        if (id == blockmap) {
+            StateLookup map = new StateLookup();
+            parseResources(contents, map::load);
+            map.bake();
+            map.compile(current.getAcoustics());
+            updated = current.withBlockMap(map);
+        } else if (id == golemmap) {
+            GolemLookup map = new GolemLookup();
+            parseResources(contents, map::load);
+            map.compile(current.getAcoustics());
+            updated = current.withGolemMap(map);
+        } else if (id == primitivemap) {
+            PrimitiveLookup map = new PrimitiveLookup();
+            parseResources(contents, map::load);
+            map.compile(current.getAcoustics());
+            updated = current.withPrimitiveMap(map);
+        } else if (id == locomotionmap) {
+            LocomotionLookup map = new LocomotionLookup();
+            parseResources(contents, map::load);
+            updated = current.withLocomotionMap(map);
+        } else if (id == variator) {
+            Variator values = new Variator();
+            parseResources(contents, values::load);
+            updated = current.withVariator(values);
+        } else {
+            updated = current.withoutAcoustics();
+            parseResources(contents, new AcousticsJsonParser(updated.getAcoustics())::parse);
+            // the lookups are shared with the current isolator, which keeps playing whichever sets they hold
+            updated.compileLookups();
+        }
+
+        long elapsed = System.nanoTime() - start;
+
+        Minecraft.getInstance().execute(() -> {
+            // a full reload has happened in the meantime and already picked up the change
+            if (isolator != current) {
+                return;
+            }
+
+            if (tags != tagGeneration) {
+                updated.getBlockMap().bake();
+            }
+
+            updated.claimAcoustics();
+            isolator = updated;
+            AssociationCache.invalidateAll();
+            PresenceFootsteps.logger.info("Reloaded " + id + " in " + (elapsed / 1000) + "us");
+        });
+    }
+
     public void reloadEverything(ResourceManager manager) {
-        isolator = new PFIsolator(this);
+        int reload = ++reloadCount;
+        apply(reload, tagGeneration, prepare(manager, Runnable::run).join());
+    }
 
-        collectResources(blockmap, manager, isolator.getBlockMap()::load);
-        collectResources(golemmap, manager, isolator.getGolemMap()::load);
-        collectResources(primitivemap, manager, isolator.getPrimitiveMap()::load);
-        collectResources(locomotionmap, manager, isolator.getLocomotionMap()::load);
-        collectResources(acoustics, manager, new AcousticsJsonParser(isolator.getAcoustics())::parse);
-        collectResources(variator, manager, isolator.getVariator()::load);
+    /**
+     * Called when the client receives new block tags. Anything resolved through a tag has to be baked again.
+     */
+    public void onTagsUpdated() {
+        tagGeneration++;
+        isolator.getBlockMap().bake();
+        AssociationCache.invalidateAll();
     }
 
-    private void collectResources(ResourceLocation id, ResourceManager manager, Consumer<Reader> consumer) {
+    private List<byte[]> readResources(ResourceLocation id, ResourceManager manager) {
+        List<byte[]> contents = new ArrayList<>();
+
         try {
             manager.getResources(id).forEach(res -> {
-                try (Reader stream = new InputStreamReader(res.getInputStream())) {
-                    consumer.accept(stream);
+                try (InputStream stream = res.getInputStream()) {
+                    contents.add(stream.readAllBytes());
                 } catch (Exception e) {
                     PresenceFootsteps.logger.error("Error encountered loading resource " + res.getLocation() + " from pack" + res.getSourceName(), e);
                 }
@@ -164,9 +455,46 @@ public class SoundEngine implements PreparableReloadListener {
         } catch (IOException e) {
             PresenceFootsteps.logger.error("Error encountered opening resources for " + id, e);
         }
+
+        return contents;
+    }
+
+    /**
+     * Adds the override file for a resource, if there is one, after the copies from resource packs.
+     */
+    private List<byte[]> withOverride(ResourceLocation id, List<byte[]> contents) {
+        Path file = overrides.resolve(getFileName(id));
+
+        if (!Files.isRegularFile(file)) {
+            return contents;
+        }
+
+        List<byte[]> result = new ArrayList<>(contents);
+        try {
+            result.add(Files.readAllBytes(file));
+        } catch (IOException e) {
+            PresenceFootsteps.logger.error("Error encountered loading override " + file, e);
+        }
+        return result;
+    }
+
+    private static String getFileName(ResourceLocation id) {
+        String path = id.getPath();
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    private void parseResources(List<byte[]> contents, Consumer<Reader> consumer) {
+        for (byte[] bytes : contents) {
+            try (Reader stream = new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8)) {
+                consumer.accept(stream);
+            } catch (Exception e) {
+                PresenceFootsteps.logger.error("Error encountered parsing resource", e);
+            }
+        }
     }
 
     public void shutdown() {
+        reloadCount++;
         isolator = new PFIsolator(this);
 
         Player player = Minecraft.getInstance().player;
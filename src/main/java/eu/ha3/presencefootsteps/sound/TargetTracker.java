@@ -0,0 +1,150 @@
+package eu.ha3.presencefootsteps.sound;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.FlyingMob;
+import net.minecraft.world.entity.LivingEntity;
+import net.minecraft.world.entity.animal.WaterAnimal;
+import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.phys.AABB;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps track of the entities on the client that are able to make footstep sounds.
+ *
+ * Candidates are filtered once as they join or leave the world, so picking out
+ * the ones near the player each frame only has to compare bounding boxes.
+ */
+public class TargetTracker {
+
+    private static final int RANGE = 16;
+
+    private final Map<Entity, Integer> indices = new IdentityHashMap<>();
+
+    private LivingEntity[] candidates = new LivingEntity[64];
+    private int candidateCount;
+
+    private LivingEntity[] targets = new LivingEntity[64];
+    private int targetCount;
+
+    public static boolean isCandidate(Entity entity) {
+        return entity instanceof LivingEntity
+            && !(entity instanceof WaterAnimal)
+            && !(entity instanceof FlyingMob);
+    }
+
+    public void add(Entity entity) {
+        if (!isCandidate(entity) || indices.containsKey(entity)) {
+            return;
+        }
+
+        if (candidateCount == candidates.length) {
+            candidates = Arrays.copyOf(candidates, candidateCount * 2);
+        }
+
+        indices.put(entity, candidateCount);
+        candidates[candidateCount++] = (LivingEntity)entity;
+    }
+
+    public void remove(Entity entity) {
+        Integer index = indices.remove(entity);
+
+        if (index != null) {
+            removeAt(index);
+        }
+    }
+
+    private void removeAt(int index) {
+        LivingEntity last = candidates[--candidateCount];
+        candidates[candidateCount] = null;
+
+        if (index != candidateCount) {
+            candidates[index] = last;
+            indices.put(last, index);
+        }
+    }
+
+    public void clear() {
+        indices.clear();
+        Arrays.fill(candidates, 0, candidateCount, null);
+        Arrays.fill(targets, 0, targetCount, null);
+        candidateCount = 0;
+        targetCount = 0;
+    }
+
+    /**
+     * Picks out the entities that should be simulated this frame.
+     *
+     * @param global True to include every candidate near the player, otherwise only other players are included.
+     */
+    public void update(Player ply, boolean global) {
+        Arrays.fill(targets, 0, targetCount, null);
+        targetCount = 0;
+
+        if (!global) {
+            List<? extends Player> players = ply.level.players();
+
+            for (int i = 0; i < players.size(); i++) {
+                addTarget(players.get(i));
+            }
+            return;
+        }
+
+        BlockPos origin = ply.blockPosition();
+        double minX = origin.getX() - RANGE;
+        double minY = origin.getY() - RANGE;
+        double minZ = origin.getZ() - RANGE;
+        double maxX = origin.getX() + 1 + RANGE;
+        double maxY = origin.getY() + 1 + RANGE;
+        double maxZ = origin.getZ() + 1 + RANGE;
+
+        for (int i = 0; i < candidateCount; i++) {
+            LivingEntity entity = candidates[i];
+
+            if (entity.isRemoved() || entity.level != ply.level) {
+                indices.remove(entity);
+                removeAt(i--);
+                continue;
+            }
+
+            if (entity.isPassenger()) {
+                continue;
+            }
+
+            AABB box = entity.getBoundingBox();
+
+            if (box.maxX > minX && box.minX < maxX
+             && box.maxY > minY && box.minY < maxY
+             && box.maxZ > minZ && box.minZ < maxZ) {
+                addTarget(entity);
+            }
+        }
+    }
+
+    private void addTarget(LivingEntity entity) {
+        if (targetCount == targets.length) {
+            targets = Arrays.copyOf(targets, targetCount * 2);
+        }
+
+        targets[targetCount++] = entity;
+    }
+
+    /**
+     * The entities picked by the last update. Only the first {@link #getTargetCount()} slots are filled.
+     */
+    public LivingEntity[] getTargets() {
+        return targets;
+    }
+
+    public int getTargetCount() {
+        return targetCount;
+    }
+
+    public int getCandidateCount() {
+        return candidateCount;
+    }
+}
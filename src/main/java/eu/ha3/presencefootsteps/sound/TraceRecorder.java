@@ -0,0 +1,235 @@
+package eu.ha3.presencefootsteps.sound;
+
+import eu.ha3.presencefootsteps.PresenceFootsteps;
+import eu.ha3.presencefootsteps.util.BinaryUtil;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Registry;
+import net.minecraft.util.Mth;
+import net.minecraft.world.entity.LivingEntity;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.phys.AABB;
+import net.minecraft.world.phys.Vec3;
+
+import javax.annotation.Nullable;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes what the step generators and solver read from each tracked entity, frame by frame,
+ * so real scenes can be replayed and benchmarked without the game.
+ *
+ * Every entity near enough to be considered is written, not only the ones scheduled that frame,
+ * so a replay doesn't depend on the scheduler's settings at the time of recording.
+ *
+ * The file is gzipped and made of tagged records. Block states around each entity's feet are
+ * written by global id the first time they're seen and again whenever they change.
+ */
+public class TraceRecorder {
+
+    public static final int MAGIC = 0x50465452; // PFTR
+    public static final int VERSION = 1;
+
+    /**
+     * Starts a frame: the engine's clock, the game time and number of entities, followed by each entity's inputs.
+     */
+    public static final byte FRAME = 0;
+    /**
+     * A block position and the global id of the state there.
+     */
+    public static final byte BLOCK = 1;
+    /**
+     * The first time an entity is seen: its id, type and locomotion.
+     */
+    public static final byte ENTITY = 2;
+
+    public static final int ON_GROUND = 1;
+    public static final int CLIMBING = 2;
+    public static final int UNDERWATER = 4;
+    public static final int SNEAKING = 8;
+    public static final int SPRINTING = 16;
+    public static final int RAINED_ON = 32;
+
+    /**
+     * How far around an entity's feet blocks are written. Covers both feet, the neighbouring blocks
+     * the solver falls back to at the edges, and the carpet and fence checks above and below.
+     */
+    private static final int HORIZONTAL_RANGE = 2;
+    private static final int BELOW = 3;
+    private static final int ABOVE = 1;
+
+    /**
+     * The most block positions remembered before they're forgotten, after which they're written again as they come up.
+     * Keeps a long recording in a moving scene from holding on to every block it has ever passed.
+     */
+    private static final int MAX_BLOCKS = 1 << 16;
+
+    private final SoundEngine engine;
+
+    @Nullable
+    private DataOutputStream out;
+
+    @Nullable
+    private Path file;
+
+    private final IntOpenHashSet entities = new IntOpenHashSet();
+
+    private final Long2IntOpenHashMap blocks = new Long2IntOpenHashMap();
+
+    private final BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+
+    private int frames;
+
+    TraceRecorder(SoundEngine engine) {
+        this.engine = engine;
+        blocks.defaultReturnValue(-1);
+    }
+
+    public boolean isRecording() {
+        return out != null;
+    }
+
+    @Nullable
+    public Path getFile() {
+        return file;
+    }
+
+    public void start(Path file) throws IOException {
+        stop();
+
+        Files.createDirectories(file.getParent());
+        out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(file)), 1 << 16));
+        this.file = file;
+        frames = 0;
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(Block.BLOCK_STATE_REGISTRY.size());
+    }
+
+    /**
+     * Finishes the file being written, if any.
+     *
+     * @return the number of frames written
+     */
+    public int stop() {
+        int written = frames;
+
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                PresenceFootsteps.logger.error("Could not finish writing trace " + file, e);
+            }
+        }
+
+        out = null;
+        entities.clear();
+        blocks.clear();
+        frames = 0;
+        return written;
+    }
+
+    void record(Level level, LivingEntity[] targets, int count) {
+        if (blocks.size() > MAX_BLOCKS) {
+            // a replay keeps every state it's been given, so writing them again is harmless
+            blocks.clear();
+        }
+
+        try {
+            for (int i = 0; i < count; i++) {
+                writeSurroundings(level, targets[i]);
+            }
+
+            out.writeByte(FRAME);
+            out.writeLong(engine.getClock().getTime());
+            out.writeLong(level.getGameTime());
+            out.writeInt(count);
+
+            for (int i = 0; i < count; i++) {
+                writeEntity(level, targets[i]);
+            }
+
+            frames++;
+        } catch (IOException e) {
+            PresenceFootsteps.logger.error("Could not write to trace " + file + ", recording stopped", e);
+            stop();
+        }
+    }
+
+    private void writeSurroundings(Level level, LivingEntity entity) throws IOException {
+        if (entities.add(entity.getId())) {
+            out.writeByte(ENTITY);
+            out.writeInt(entity.getId());
+            BinaryUtil.writeString(out, Registry.ENTITY_TYPE.getKey(entity.getType()).toString());
+            out.writeByte(engine.getLocomotion(entity).ordinal());
+        }
+
+        int x = Mth.floor(entity.getX());
+        int y = Mth.floor(entity.getBoundingBox().minY);
+        int z = Mth.floor(entity.getZ());
+
+        for (int dx = -HORIZONTAL_RANGE; dx <= HORIZONTAL_RANGE; dx++) {
+            for (int dz = -HORIZONTAL_RANGE; dz <= HORIZONTAL_RANGE; dz++) {
+                for (int dy = -BELOW; dy <= ABOVE; dy++) {
+                    pos.set(x + dx, y + dy, z + dz);
+                    int state = Block.getId(level.getBlockState(pos));
+                    long key = pos.asLong();
+
+                    if (blocks.put(key, state) != state) {
+                        out.writeByte(BLOCK);
+                        out.writeLong(key);
+                        out.writeInt(state);
+                    }
+                }
+            }
+        }
+    }
+
+    private void writeEntity(Level level, LivingEntity entity) throws IOException {
+        int flags = 0;
+
+        if (entity.isOnGround()) {
+            flags |= ON_GROUND;
+        }
+        if (entity.onClimbable()) {
+            flags |= CLIMBING;
+        }
+        if (entity.isUnderWater()) {
+            flags |= UNDERWATER;
+        }
+        if (entity.isShiftKeyDown()) {
+            flags |= SNEAKING;
+        }
+        if (entity.isSprinting()) {
+            flags |= SPRINTING;
+        }
+        if (level.isRainingAt(pos.set(entity.getX(), entity.getBoundingBox().minY, entity.getZ()).move(0, 1, 0))) {
+            flags |= RAINED_ON;
+        }
+
+        Vec3 motion = entity.getDeltaMovement();
+        AABB box = entity.getBoundingBox();
+
+        out.writeInt(entity.getId());
+        out.writeByte(flags);
+        out.writeDouble(entity.getX());
+        out.writeDouble(entity.getY());
+        out.writeDouble(entity.getZ());
+        out.writeFloat(entity.getYRot());
+        out.writeFloat(entity.moveDist);
+        out.writeFloat(entity.fallDistance);
+        out.writeFloat((float) motion.x);
+        out.writeFloat((float) motion.y);
+        out.writeFloat((float) motion.z);
+        out.writeFloat(entity.xxa);
+        out.writeFloat((float) box.getXsize());
+        out.writeFloat((float) box.getYsize());
+    }
+}
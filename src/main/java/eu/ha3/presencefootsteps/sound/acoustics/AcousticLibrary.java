@@ -11,14 +11,20 @@ public interface AcousticLibrary {
      */
     void addAcoustic(String name, Acoustic acoustic);
 
+    /**
+     * Resolves a comma separated list of acoustic names into a set that can be played directly.
+     * Results are cached, so names that could not be found are only reported the first time.
+     */
+    AcousticSet compile(String acousticName);
+
     /**
      * Plays an acoustic with additional options.
      */
     default void playAcoustic(Association association, State event, Options options) {
-        playAcoustic(association.getSource(), association.getAcousticName(), event, options);
+        playAcoustic(association.getSource(), association.getAcoustics(), event, options);
     }
 
-    void playAcoustic(Entity location, String acousticName, State event, Options options);
+    void playAcoustic(Entity location, AcousticSet acoustics, State event, Options options);
 
     /**
      * Run various things, such as queued sounds.
@@ -0,0 +1,68 @@
+package eu.ha3.presencefootsteps.sound.acoustics;
+
+import eu.ha3.presencefootsteps.sound.Options;
+import eu.ha3.presencefootsteps.sound.State;
+import eu.ha3.presencefootsteps.sound.player.SoundPlayer;
+import net.minecraft.world.entity.Entity;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A pre-resolved group of acoustics that are all played together.
+ * Sets are interned, so every distinct combination is only ever built once.
+ */
+public final class AcousticSet implements Acoustic {
+
+    public static final AcousticSet EMPTY = new AcousticSet("", new Acoustic[0]);
+
+    private final String name;
+
+    private final Acoustic[] acoustics;
+
+    private final Map<AcousticSet, AcousticSet> combinations = new ConcurrentHashMap<>();
+
+    AcousticSet(String name, Acoustic[] acoustics) {
+        this.name = name;
+        this.acoustics = acoustics;
+    }
+
+    /**
+     * Gets the comma separated names this set was compiled from.
+     */
+    public String getName() {
+        return name;
+    }
+
+    public boolean isEmpty() {
+        return acoustics.length == 0;
+    }
+
+    /**
+     * Gets the set that plays all of this set's acoustics followed by those of another.
+     */
+    public AcousticSet with(AcousticSet other) {
+        if (other.isEmpty()) {
+            return this;
+        }
+
+        if (isEmpty()) {
+            return other;
+        }
+
+        return combinations.computeIfAbsent(other, o -> {
+            Acoustic[] combined = Arrays.copyOf(acoustics, acoustics.length + o.acoustics.length);
+            System.arraycopy(o.acoustics, 0, combined, acoustics.length, o.acoustics.length);
+
+            return new AcousticSet(name + "," + o.name, combined);
+        });
+    }
+
+    @Override
+    public void playSound(SoundPlayer player, Entity location, State event, Options inputOptions) {
+        for (Acoustic acoustic : acoustics) {
+            acoustic.playSound(player, location, event, inputOptions);
+        }
+    }
+}
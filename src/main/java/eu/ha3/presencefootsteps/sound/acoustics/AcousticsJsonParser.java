@@ -1,14 +1,20 @@
 package eu.ha3.presencefootsteps.sound.acoustics;
 
 import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
 import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.MalformedJsonException;
 import eu.ha3.presencefootsteps.PresenceFootsteps;
 import eu.ha3.presencefootsteps.util.Range;
 
+import java.io.IOException;
 import java.io.Reader;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -23,8 +29,6 @@ public class AcousticsJsonParser {
 
     private static final Map<String, AcousticFactory> factories = new HashMap<>();
 
-    private static final JsonParser PARSER = new JsonParser();
-
     private final Range defaultVolume = new Range(1);
     private final Range defaultPitch = new Range(1);
 
@@ -56,34 +60,88 @@ public class AcousticsJsonParser {
         defaultVolume.on(1);
         defaultPitch.on(1);
 
-        JsonObject json = PARSER.parse(reader).getAsJsonObject();
-
-        if (!"library".equals(json.get("type").getAsString())) {
-            throw new JsonParseException("Invalid type: \"library\"");
-        }
-
-        if (json.get("engineversion").getAsInt() != ENGINEVERSION) {
-            throw new JsonParseException("Unrecognised Engine version: " + ENGINEVERSION + " expected, got "
-                    + json.get("engineversion").getAsInt());
-        }
-
-        if (!json.has("contents")) {
-            throw new JsonParseException("Empty contents");
-        }
-
-        if (json.has("soundroot")) {
-            soundRoot = json.get("soundroot").getAsString();
-        }
-
-        if (json.has("defaults")) {
-            JsonObject defaults = json.getAsJsonObject("defaults");
-            defaultVolume.read("vol", defaults, this);
-            defaultPitch.read("pitch", defaults, this);
+        try {
+            JsonReader json = new JsonReader(reader);
+            json.setLenient(true);
+
+            boolean hasType = false;
+            boolean hasVersion = false;
+            boolean hasSoundRoot = false;
+            boolean hasDefaults = false;
+            boolean hasContents = false;
+            Map<String, JsonElement> pending = new LinkedHashMap<>();
+
+            json.beginObject();
+            while (json.hasNext()) {
+                switch (json.nextName()) {
+                    case "type":
+                        if (!"library".equals(json.nextString())) {
+                            throw new JsonParseException("Invalid type: \"library\"");
+                        }
+                        hasType = true;
+                        break;
+                    case "engineversion":
+                        int version = json.nextInt();
+                        if (version != ENGINEVERSION) {
+                            throw new JsonParseException("Unrecognised Engine version: " + ENGINEVERSION + " expected, got " + version);
+                        }
+                        hasVersion = true;
+                        break;
+                    case "soundroot":
+                        soundRoot = json.nextString();
+                        hasSoundRoot = true;
+                        break;
+                    case "defaults":
+                        JsonObject defaults = JsonParser.parseReader(json).getAsJsonObject();
+                        defaultVolume.read("vol", defaults, this);
+                        defaultPitch.read("pitch", defaults, this);
+                        hasDefaults = true;
+                        break;
+                    case "contents":
+                        hasContents = true;
+                        // Acoustics can only be built once everything they depend on has been read.
+                        // That's usually the case, otherwise they're held back until the end.
+                        boolean ready = hasType && hasVersion && hasSoundRoot && hasDefaults;
+
+                        json.beginObject();
+                        while (json.hasNext()) {
+                            String name = json.nextName();
+                            JsonElement element = JsonParser.parseReader(json);
+
+                            if (ready) {
+                                lib.addAcoustic(name, solveAcoustic(element, "events"));
+                            } else {
+                                pending.put(name, element);
+                            }
+                        }
+                        json.endObject();
+                        break;
+                    default:
+                        json.skipValue();
+                }
+            }
+            json.endObject();
+
+            if (!hasType) {
+                throw new JsonParseException("Invalid type: \"library\"");
+            }
+
+            if (!hasVersion) {
+                throw new JsonParseException("Missing engine version");
+            }
+
+            if (!hasContents) {
+                throw new JsonParseException("Empty contents");
+            }
+
+            pending.forEach((name, element) -> {
+                lib.addAcoustic(name, solveAcoustic(element, "events"));
+            });
+        } catch (MalformedJsonException e) {
+            throw new JsonSyntaxException(e);
+        } catch (IOException e) {
+            throw new JsonIOException(e);
         }
-
-        json.getAsJsonObject("contents").entrySet().forEach(element -> {
-            lib.addAcoustic(element.getKey(), solveAcoustic(element.getValue(), "events"));
-        });
     }
 
     public Acoustic solveAcoustic(JsonElement unsolved) throws JsonParseException {
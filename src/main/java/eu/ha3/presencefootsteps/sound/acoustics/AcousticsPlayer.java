@@ -5,38 +5,78 @@ import eu.ha3.presencefootsteps.sound.Options;
 import eu.ha3.presencefootsteps.sound.State;
 import eu.ha3.presencefootsteps.sound.player.ImmediateSoundPlayer;
 import eu.ha3.presencefootsteps.sound.player.SoundPlayer;
+import eu.ha3.presencefootsteps.util.Clock;
 import net.minecraft.world.entity.Entity;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntSupplier;
 
 public class AcousticsPlayer extends ImmediateSoundPlayer implements AcousticLibrary {
 
-    private final SoundPlayer player;
+    private volatile SoundPlayer player;
 
     private final Map<String, Acoustic> acoustics = new HashMap<>();
 
-    public AcousticsPlayer(SoundPlayer player) {
+    private final Map<String, AcousticSet> compiled = new ConcurrentHashMap<>();
+
+    public AcousticsPlayer(SoundPlayer player, Clock clock, IntSupplier maxPendingSounds, IntSupplier maxVoices) {
+        super(clock, maxPendingSounds, maxVoices);
+        this.player = player;
+    }
+
+    /**
+     * The player every acoustic is played through.
+     */
+    public SoundPlayer getPlayer() {
+        return player;
+    }
+
+    /**
+     * Plays every acoustic through a different player from now on.
+     * The sounds still waiting to be played and the voices already playing are kept.
+     */
+    public void setPlayer(SoundPlayer player) {
         this.player = player;
     }
 
     @Override
     public void addAcoustic(String name, Acoustic acoustic) {
         acoustics.put(name, acoustic);
+        compiled.clear();
+    }
+
+    /**
+     * Every acoustic in this library by name.
+     */
+    Map<String, Acoustic> getAcousticMap() {
+        return acoustics;
     }
 
     @Override
-    public void playAcoustic(Entity location, String acousticName, State event, Options inputOptions) {
-        if (acousticName.contains(",")) {
-            String[] fragments = acousticName.split(",");
+    public AcousticSet compile(String acousticName) {
+        return compiled.computeIfAbsent(acousticName, name -> {
+            List<Acoustic> resolved = new ArrayList<>();
+
+            for (String fragment : name.split(",")) {
+                Acoustic acoustic = acoustics.get(fragment);
 
-            for (String fragment : fragments) {
-                playAcoustic(location, fragment, event, inputOptions);
+                if (acoustic == null) {
+                    PresenceFootsteps.logger.warn("Tried to play a missing acoustic: " + fragment);
+                } else {
+                    resolved.add(acoustic);
+                }
             }
-        } else if (!acoustics.containsKey(acousticName)) {
-            PresenceFootsteps.logger.warn("Tried to play a missing acoustic: " + acousticName);
-        } else {
-            acoustics.get(acousticName).playSound(player, location, event, inputOptions);
-        }
+
+            return new AcousticSet(name, resolved.toArray(new Acoustic[0]));
+        });
+    }
+
+    @Override
+    public void playAcoustic(Entity location, AcousticSet acoustics, State event, Options inputOptions) {
+        acoustics.playSound(player, location, event, inputOptions);
     }
 }
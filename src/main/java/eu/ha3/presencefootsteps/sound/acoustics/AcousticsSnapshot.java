@@ -0,0 +1,157 @@
+package eu.ha3.presencefootsteps.sound.acoustics;
+
+import eu.ha3.presencefootsteps.sound.State;
+import eu.ha3.presencefootsteps.util.Range;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static eu.ha3.presencefootsteps.util.BinaryUtil.readString;
+import static eu.ha3.presencefootsteps.util.BinaryUtil.writeString;
+
+/**
+ * Writes a library's acoustics out as a binary graph, and reads them back without going through json.
+ */
+public final class AcousticsSnapshot {
+
+    private static final byte VARYING = 0;
+    private static final byte DELAYED = 1;
+    private static final byte EVENTS = 2;
+    private static final byte SIMULTANEOUS = 3;
+    private static final byte WEIGHTED = 4;
+    private static final byte CHANCE = 5;
+
+    private AcousticsSnapshot() {}
+
+    public static void write(DataOutput out, AcousticLibrary library) throws IOException {
+        if (!(library instanceof AcousticsPlayer)) {
+            throw new IOException("Unsupported acoustic library " + library.getClass());
+        }
+
+        Map<String, Acoustic> acoustics = ((AcousticsPlayer)library).getAcousticMap();
+
+        out.writeInt(acoustics.size());
+        for (Map.Entry<String, Acoustic> entry : acoustics.entrySet()) {
+            writeString(out, entry.getKey());
+            writeAcoustic(out, entry.getValue());
+        }
+    }
+
+    public static void read(ByteBuffer in, AcousticLibrary library) throws IOException {
+        for (int i = in.getInt(); i > 0; i--) {
+            String name = readString(in);
+            library.addAcoustic(name, readAcoustic(in));
+        }
+    }
+
+    private static void writeAcoustic(DataOutput out, Acoustic acoustic) throws IOException {
+        if (acoustic instanceof DelayedAcoustic) {
+            DelayedAcoustic delayed = (DelayedAcoustic)acoustic;
+            out.writeByte(DELAYED);
+            writeVarying(out, delayed);
+            out.writeLong(delayed.options.getDelayMin());
+            out.writeLong(delayed.options.getDelayMax());
+        } else if (acoustic instanceof VaryingAcoustic) {
+            out.writeByte(VARYING);
+            writeVarying(out, (VaryingAcoustic)acoustic);
+        } else if (acoustic instanceof EventSelectorAcoustics) {
+            Map<State, Acoustic> pairs = ((EventSelectorAcoustics)acoustic).pairs;
+            out.writeByte(EVENTS);
+            out.writeInt(pairs.size());
+            for (Map.Entry<State, Acoustic> pair : pairs.entrySet()) {
+                out.writeByte(pair.getKey().ordinal());
+                writeAcoustic(out, pair.getValue());
+            }
+        } else if (acoustic instanceof SimultaneousAcoustic) {
+            out.writeByte(SIMULTANEOUS);
+            writeList(out, ((SimultaneousAcoustic)acoustic).acoustics);
+        } else if (acoustic instanceof WeightedAcoustic) {
+            WeightedAcoustic weighted = (WeightedAcoustic)acoustic;
+            out.writeByte(WEIGHTED);
+            writeList(out, weighted.theAcoustics);
+            out.writeInt(weighted.probabilityThresholds.length);
+            for (float threshold : weighted.probabilityThresholds) {
+                out.writeFloat(threshold);
+            }
+        } else if (acoustic instanceof ChanceAcoustic) {
+            ChanceAcoustic chance = (ChanceAcoustic)acoustic;
+            out.writeByte(CHANCE);
+            out.writeFloat(chance.probability);
+            writeAcoustic(out, chance.acoustic);
+        } else {
+            throw new IOException("Unsupported acoustic type " + acoustic.getClass());
+        }
+    }
+
+    private static Acoustic readAcoustic(ByteBuffer in) throws IOException {
+        byte type = in.get();
+
+        switch (type) {
+            case VARYING:
+                return new VaryingAcoustic(readString(in), readRange(in), readRange(in));
+            case DELAYED:
+                return new DelayedAcoustic(readString(in), readRange(in), readRange(in), in.getLong(), in.getLong());
+            case EVENTS: {
+                Map<State, Acoustic> pairs = new EnumMap<>(State.class);
+                State[] states = State.values();
+                for (int i = in.getInt(); i > 0; i--) {
+                    pairs.put(states[in.get()], readAcoustic(in));
+                }
+                return new EventSelectorAcoustics(pairs);
+            }
+            case SIMULTANEOUS:
+                return new SimultaneousAcoustic(readList(in));
+            case WEIGHTED: {
+                List<Acoustic> acoustics = readList(in);
+                float[] thresholds = new float[in.getInt()];
+                for (int i = 0; i < thresholds.length; i++) {
+                    thresholds[i] = in.getFloat();
+                }
+                return new WeightedAcoustic(acoustics, thresholds);
+            }
+            case CHANCE: {
+                float probability = in.getFloat();
+                return new ChanceAcoustic(readAcoustic(in), probability);
+            }
+            default:
+                throw new IOException("Unknown acoustic type " + type);
+        }
+    }
+
+    private static void writeVarying(DataOutput out, VaryingAcoustic acoustic) throws IOException {
+        writeString(out, acoustic.soundName);
+        writeRange(out, acoustic.volume);
+        writeRange(out, acoustic.pitch);
+    }
+
+    private static void writeRange(DataOutput out, Range range) throws IOException {
+        out.writeFloat(range.min);
+        out.writeFloat(range.max);
+    }
+
+    private static Range readRange(ByteBuffer in) {
+        float min = in.getFloat();
+        return new Range(min, in.getFloat());
+    }
+
+    private static void writeList(DataOutput out, List<Acoustic> acoustics) throws IOException {
+        out.writeInt(acoustics.size());
+        for (Acoustic acoustic : acoustics) {
+            writeAcoustic(out, acoustic);
+        }
+    }
+
+    private static List<Acoustic> readList(ByteBuffer in) throws IOException {
+        int size = in.getInt();
+        List<Acoustic> acoustics = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            acoustics.add(readAcoustic(in));
+        }
+        return acoustics;
+    }
+}
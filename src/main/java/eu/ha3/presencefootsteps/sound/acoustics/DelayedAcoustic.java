@@ -2,37 +2,30 @@ package eu.ha3.presencefootsteps.sound.acoustics;
 
 import com.google.gson.JsonObject;
 import eu.ha3.presencefootsteps.sound.Options;
-import eu.ha3.presencefootsteps.util.Period;
+import eu.ha3.presencefootsteps.util.Range;
 
-class DelayedAcoustic extends VaryingAcoustic implements Options {
+class DelayedAcoustic extends VaryingAcoustic {
 
-    private final Period delay = new Period(0);
+    final Options options = new Options();
 
     public DelayedAcoustic(JsonObject json, AcousticsJsonParser context) {
         super(json, context);
 
         if (json.has("delay")) {
-            delay.set(json.get("delay").getAsLong());
+            long delay = json.get("delay").getAsLong();
+            options.withDelay(delay, delay);
         } else {
-            delay.set(json.get("delay_min").getAsLong(), json.get("delay_max").getAsLong());
+            options.withDelay(json.get("delay_min").getAsLong(), json.get("delay_max").getAsLong());
         }
     }
 
-    @Override
-    protected Options getOptions() {
-        return this;
-    }
-
-    @Override
-    public boolean containsKey(Object option) {
-        return "delay_min".equals(option)
-            || "delay_max".equals(option);
+    DelayedAcoustic(String soundName, Range volume, Range pitch, long delayMin, long delayMax) {
+        super(soundName, volume, pitch);
+        options.withDelay(delayMin, delayMax);
     }
 
     @Override
-    public long get(String option) {
-        return "delay_min".equals(option) ? delay.min
-             : "delay_max".equals(option) ? delay.max
-             : 0;
+    protected Options getOptions() {
+        return options;
     }
 }
@@ -15,7 +15,7 @@ import java.util.Map;
  * @author Hurry
  */
 class EventSelectorAcoustics implements Acoustic {
-    private final Map<State, Acoustic> pairs = new HashMap<>();
+    final Map<State, Acoustic> pairs = new HashMap<>();
 
     public EventSelectorAcoustics(JsonObject json, AcousticsJsonParser context) {
         for (State i : State.values()) {
@@ -27,6 +27,10 @@ class EventSelectorAcoustics implements Acoustic {
         }
     }
 
+    EventSelectorAcoustics(Map<State, Acoustic> pairs) {
+        this.pairs.putAll(pairs);
+    }
+
     @Override
     public void playSound(SoundPlayer player, Entity location, State event, Options inputOptions) {
         if (pairs.containsKey(event)) {
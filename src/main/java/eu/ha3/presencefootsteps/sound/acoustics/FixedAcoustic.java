@@ -0,0 +1,55 @@
+package eu.ha3.presencefootsteps.sound.acoustics;
+
+import java.util.Arrays;
+
+/**
+ * Acoustics that are played by name rather than through an association,
+ * for sounds that don't depend on what the entity is standing on.
+ */
+public enum FixedAcoustic {
+    /**
+     * Moving through water.
+     */
+    SWIM("_SWIM"),
+    /**
+     * A single beat of a pegasus' wings.
+     */
+    WING("_WING"),
+    /**
+     * A pegasus taking off or coming in to land at speed.
+     */
+    SWIFT("_SWIFT");
+
+    static final FixedAcoustic[] VALUES = values();
+
+    private final String acousticName;
+
+    FixedAcoustic(String acousticName) {
+        this.acousticName = acousticName;
+    }
+
+    public String getAcousticName() {
+        return acousticName;
+    }
+
+    /**
+     * Gets a set for every fixed acoustic that plays nothing, for before a library has been loaded.
+     */
+    public static AcousticSet[] empty() {
+        AcousticSet[] sets = new AcousticSet[VALUES.length];
+        Arrays.fill(sets, AcousticSet.EMPTY);
+        return sets;
+    }
+
+    /**
+     * Resolves every fixed acoustic against a library, indexed by ordinal.
+     * Has to be done again whenever the library changes.
+     */
+    public static AcousticSet[] compile(AcousticLibrary library) {
+        AcousticSet[] sets = new AcousticSet[VALUES.length];
+        for (FixedAcoustic acoustic : VALUES) {
+            sets[acoustic.ordinal()] = library.compile(acoustic.acousticName);
+        }
+        return sets;
+    }
+}
@@ -18,7 +18,7 @@ import java.util.List;
  */
 class SimultaneousAcoustic implements Acoustic {
 
-    private final List<Acoustic> acoustics = new ArrayList<>();
+    final List<Acoustic> acoustics = new ArrayList<>();
 
     public SimultaneousAcoustic(JsonObject json, AcousticsJsonParser context) {
         this(json.getAsJsonArray("array"), context);
@@ -30,6 +30,10 @@ class SimultaneousAcoustic implements Acoustic {
         }
     }
 
+    SimultaneousAcoustic(List<Acoustic> acoustics) {
+        this.acoustics.addAll(acoustics);
+    }
+
     @Override
     public void playSound(SoundPlayer player, Entity location, State event, Options inputOptions) {
         acoustics.forEach(acoustic -> acoustic.playSound(player, location, event, inputOptions));
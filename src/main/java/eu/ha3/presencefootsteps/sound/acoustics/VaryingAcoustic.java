@@ -15,10 +15,10 @@ import net.minecraft.world.entity.Entity;
  */
 class VaryingAcoustic implements Acoustic {
 
-    private final String soundName;
+    final String soundName;
 
-    private final Range volume = new Range(1);
-    private final Range pitch = new Range(1);
+    final Range volume = new Range(1);
+    final Range pitch = new Range(1);
 
     public VaryingAcoustic(JsonObject json, AcousticsJsonParser context) {
         this(json.get("name").getAsString(), context);
@@ -33,6 +33,12 @@ class VaryingAcoustic implements Acoustic {
         soundName = context.getSoundName(name);
     }
 
+    VaryingAcoustic(String soundName, Range volume, Range pitch) {
+        this.soundName = soundName;
+        this.volume.copy(volume);
+        this.pitch.copy(pitch);
+    }
+
     protected Options getOptions() {
         return Options.EMPTY;
     }
@@ -47,13 +53,13 @@ class VaryingAcoustic implements Acoustic {
         float volume = this.volume.random(player.getRNG());
         float pitch = this.pitch.random(player.getRNG());
 
-        if (inputOptions.containsKey("gliding_volume")) {
-            volume = this.volume.on(inputOptions.get("gliding_volume"));
+        if (inputOptions.hasGlidingVolume()) {
+            volume = this.volume.on(inputOptions.getGlidingVolume());
         }
-        if (inputOptions.containsKey("gliding_pitch")) {
-            pitch = this.pitch.on(inputOptions.get("gliding_pitch"));
+        if (inputOptions.hasGlidingPitch()) {
+            pitch = this.pitch.on(inputOptions.getGlidingPitch());
         }
 
-        player.playSound(location, soundName, volume, pitch, getOptions());
+        player.playSound(location, soundName, volume, pitch, event, getOptions());
     }
 }
@@ -45,6 +45,11 @@ class WeightedAcoustic implements Acoustic {
         }
     }
 
+    WeightedAcoustic(List<Acoustic> acoustics, float[] probabilityThresholds) {
+        theAcoustics = new ArrayList<>(acoustics);
+        this.probabilityThresholds = probabilityThresholds;
+    }
+
     @Override
     public void playSound(SoundPlayer player, Entity location, State event, Options inputOptions) {
         float rand = player.getRNG().nextFloat();
@@ -5,8 +5,10 @@ import eu.ha3.presencefootsteps.config.Variator;
 import eu.ha3.presencefootsteps.sound.Isolator;
 import eu.ha3.presencefootsteps.sound.State;
 import eu.ha3.presencefootsteps.sound.acoustics.AcousticLibrary;
+import eu.ha3.presencefootsteps.util.Clock;
 import eu.ha3.presencefootsteps.util.PlayerUtil;
 import eu.ha3.presencefootsteps.world.Association;
+import eu.ha3.presencefootsteps.world.AssociationCache;
 import eu.ha3.presencefootsteps.world.Solver;
 import net.minecraft.client.player.RemotePlayer;
 import net.minecraft.world.entity.LivingEntity;
@@ -21,14 +23,26 @@ class BipedalStepSoundGenerator implements StepSoundGenerator {
     private double lastY;
     private double lastZ;
 
+    private long lastFrame = -1;
+    /**
+     * The number of frames since this generator was last run, which the position change since then is spread over.
+     */
+    private int elapsedFrames = 1;
+
     protected double motionX;
     protected double motionY;
     protected double motionZ;
 
     // Construct
+    protected Isolator isolator;
     protected Solver solver;
     protected AcousticLibrary acoustics;
     protected Variator variator;
+    protected Clock clock;
+
+    protected final AssociationCache associations = new AssociationCache();
+
+    private final BlockPos.MutableBlockPos messyPos = new BlockPos.MutableBlockPos();
 
     // Footsteps
     protected float dmwBase;
@@ -59,9 +73,17 @@ class BipedalStepSoundGenerator implements StepSoundGenerator {
 
     @Override
     public void setIsolator(Isolator isolator) {
+        this.isolator = isolator;
         solver = isolator.getSolver();
         acoustics = isolator.getAcoustics();
         variator = isolator.getVariator();
+        clock = isolator.getClock();
+    }
+
+    @Override
+    public void setFrame(long frame) {
+        elapsedFrames = lastFrame < 0 ? 1 : (int)Math.max(1, Math.min(frame - lastFrame, Integer.MAX_VALUE));
+        lastFrame = frame;
     }
 
     @Override
@@ -76,7 +98,7 @@ class BipedalStepSoundGenerator implements StepSoundGenerator {
 
     protected void simulateStationary(LivingEntity ply) {
         if (isImmobile && (ply.isOnGround() || !ply.isUnderWater()) && playbackImmobile()) {
-            Association assos = solver.findAssociation(ply, 0d, isRightFoot);
+            Association assos = solver.findAssociation(associations, ply, 0d, isRightFoot);
 
             if (assos.hasAssociation() || !isImmobile) {
                 solver.playAssociation(ply, assos, State.STAND);
@@ -85,7 +107,7 @@ class BipedalStepSoundGenerator implements StepSoundGenerator {
     }
 
     protected boolean playbackImmobile() {
-        long now = System.currentTimeMillis();
+        long now = clock.getTime();
         if (now - immobilePlayback > immobileInterval) {
             immobilePlayback = now;
             immobileInterval = (int) Math.floor(
@@ -106,10 +128,11 @@ class BipedalStepSoundGenerator implements StepSoundGenerator {
             motionZ = ply.getDeltaMovement().z;
         } else {
             // Other players don't send their motion data so we have to make our own
-            // approximations.
-            motionX = (ply.getX() - lastX);
+            // approximations. Averaged over the frames since the last run, so entities that are
+            // only run every few frames don't look like they're moving faster.
+            motionX = (ply.getX() - lastX) / elapsedFrames;
             lastX = ply.getX();
-            motionY = (ply.getY() - lastY);
+            motionY = (ply.getY() - lastY) / elapsedFrames;
 
             if (ply.isOnGround()) {
                 motionY += 0.0784000015258789d;
@@ -117,23 +140,24 @@ class BipedalStepSoundGenerator implements StepSoundGenerator {
 
             lastY = ply.getY();
 
-            motionZ = (ply.getZ() - lastZ);
+            motionZ = (ply.getZ() - lastZ) / elapsedFrames;
             lastZ = ply.getZ();
         }
 
         if (ply instanceof RemotePlayer) {
             if (ply.level.getGameTime() % 1 == 0) {
 
+                // the distances cover every frame since the last run, not just the one
                 if (motionX != 0 || motionZ != 0) {
-                    ply.moveDist += Mth.sqrt((float) (Math.pow(motionX, 2) + Math.pow(motionY, 2) + Math.pow(motionZ, 2))) * 0.8;
+                    ply.moveDist += Mth.sqrt((float) (Math.pow(motionX, 2) + Math.pow(motionY, 2) + Math.pow(motionZ, 2))) * 0.8 * elapsedFrames;
                 } else {
-                    ply.moveDist += Mth.sqrt((float) (Math.pow(motionX, 2) + Math.pow(motionZ, 2))) * 0.8;
+                    ply.moveDist += Mth.sqrt((float) (Math.pow(motionX, 2) + Math.pow(motionZ, 2))) * 0.8 * elapsedFrames;
                 }
 
                 if (ply.isOnGround()) {
                     ply.fallDistance = 0;
                 } else if (motionY < 0) {
-                    ply.fallDistance -= motionY * 200;
+                    ply.fallDistance -= motionY * 200 * elapsedFrames;
                 }
             }
         }
@@ -143,11 +167,11 @@ class BipedalStepSoundGenerator implements StepSoundGenerator {
         float diff = lastReference - reference;
         lastReference = reference;
         if (!isImmobile && diff == 0f) {
-            timeImmobile = System.currentTimeMillis();
+            timeImmobile = clock.getTime();
             isImmobile = true;
         } else if (isImmobile && diff != 0f) {
             isImmobile = false;
-            return System.currentTimeMillis() - timeImmobile > variator.IMMOBILE_DURATION;
+            return clock.getTime() - timeImmobile > variator.IMMOBILE_DURATION;
         }
 
         return false;
@@ -171,7 +195,7 @@ class BipedalStepSoundGenerator implements StepSoundGenerator {
             scalStat = !scalStat;
 
             if (scalStat && variator.PLAY_WANDER && !solver.hasStoppingConditions(ply)) {
-                solver.playAssociation(ply, solver.findAssociation(ply, 0, isRightFoot),
+                solver.playAssociation(ply, solver.findAssociation(associations, ply, 0, isRightFoot),
                         State.WANDER);
             }
         }
@@ -239,7 +263,7 @@ class BipedalStepSoundGenerator implements StepSoundGenerator {
                 event = speedDisambiguator(ply, State.WALK, State.RUN);
             }
 
-            solver.playAssociation(ply, solver.findAssociation(ply, verticalOffsetAsMinus, isRightFoot), event);
+            solver.playAssociation(ply, solver.findAssociation(associations, ply, verticalOffsetAsMinus, isRightFoot), event);
             isRightFoot = !isRightFoot;
         }
 
@@ -330,17 +354,19 @@ class BipedalStepSoundGenerator implements StepSoundGenerator {
     }
 
     private void simulateBrushes(LivingEntity ply) {
-        if (brushesTime > System.currentTimeMillis()) {
+        long now = clock.getTime();
+
+        if (brushesTime > now) {
             return;
         }
 
-        brushesTime = System.currentTimeMillis() + 100;
+        brushesTime = now + 100;
 
         if ((motionX == 0 && motionZ == 0) || ply.isShiftKeyDown()) {
             return;
         }
 
-        Association assos = solver.findAssociation(ply.level, new BlockPos(
+        Association assos = solver.findAssociation(associations, ply.level, messyPos.set(
             ply.getZ(),
             ply.getY() - 0.1D - ply.getMyRidingOffset() - (ply.isOnGround() ? 0 : 0.25D),
             ply.getZ()
@@ -357,10 +383,10 @@ class BipedalStepSoundGenerator implements StepSoundGenerator {
     }
 
     protected void playSinglefoot(LivingEntity ply, double verticalOffsetAsMinus, State eventType, boolean foot) {
-        Association assos = solver.findAssociation(ply, verticalOffsetAsMinus, isRightFoot);
+        Association assos = solver.findAssociation(associations, ply, verticalOffsetAsMinus, isRightFoot);
 
         if (assos.isNotEmitter()) {
-            assos = solver.findAssociation(ply, verticalOffsetAsMinus + 1, isRightFoot);
+            assos = solver.findAssociation(associations, ply, verticalOffsetAsMinus + 1, isRightFoot);
         }
 
         solver.playAssociation(ply, assos, eventType);
@@ -368,11 +394,11 @@ class BipedalStepSoundGenerator implements StepSoundGenerator {
 
     protected void playMultifoot(LivingEntity ply, double verticalOffsetAsMinus, State eventType) {
         // STILL JUMP
-        Association leftFoot = solver.findAssociation(ply, verticalOffsetAsMinus, false);
-        Association rightFoot = solver.findAssociation(ply, verticalOffsetAsMinus, true);
+        Association leftFoot = solver.findAssociation(associations, ply, verticalOffsetAsMinus, false);
+        Association rightFoot = solver.findAssociation(associations, ply, verticalOffsetAsMinus, true);
 
         if (leftFoot.hasAssociation() && leftFoot.equals(rightFoot)) {
-            // If the two feet solve to the same sound, except NO_ASSOCIATION, only play the sound once
+            // If the two feet solve to the same sound on the same block, except NO_ASSOCIATION, only play the sound once
             rightFoot = Association.NOT_EMITTER;
         }
 
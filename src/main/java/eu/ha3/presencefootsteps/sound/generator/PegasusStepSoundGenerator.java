@@ -2,6 +2,7 @@ package eu.ha3.presencefootsteps.sound.generator;
 
 import eu.ha3.presencefootsteps.sound.Options;
 import eu.ha3.presencefootsteps.sound.State;
+import eu.ha3.presencefootsteps.sound.acoustics.FixedAcoustic;
 import eu.ha3.presencefootsteps.util.MathUtil;
 import net.minecraft.world.entity.LivingEntity;
 
@@ -14,6 +15,8 @@ class PegasusStepSoundGenerator extends QuadrapedalStepSoundGenerator {
     private long lastTimeImmobile;
     protected long nextFlapTime;
 
+    private final Options options = new Options();
+
     @Override
     public boolean generateFootsteps(LivingEntity ply) {
         lastTimeImmobile = timeImmobile;
@@ -77,7 +80,7 @@ class PegasusStepSoundGenerator extends QuadrapedalStepSoundGenerator {
             return;
         }
 
-        final long now = System.currentTimeMillis();
+        final long now = clock.getTime();
 
         double xpd = motionX * motionX + motionZ * motionZ;
         float speed = (float) Math.sqrt(xpd);
@@ -93,9 +96,9 @@ class PegasusStepSoundGenerator extends QuadrapedalStepSoundGenerator {
             if (!isAirborne) {
                 float volume = speedingJumpStateChange ? 2
                         : MathUtil.scalex(fallDistance, variator.HUGEFALL_LANDING_DISTANCE_MIN, variator.HUGEFALL_LANDING_DISTANCE_MAX);
-                acoustics.playAcoustic(ply, "_SWIFT", State.LAND, Options.singular("gliding_volume", volume));
+                acoustics.playAcoustic(ply, isolator.getAcoustic(FixedAcoustic.SWIFT), State.LAND, options.reset().withGlidingVolume(volume));
             } else {
-                acoustics.playAcoustic(ply, "_SWIFT", State.JUMP, Options.EMPTY);
+                acoustics.playAcoustic(ply, isolator.getAcoustic(FixedAcoustic.SWIFT), State.JUMP, Options.EMPTY);
             }
         }
 
@@ -107,7 +110,7 @@ class PegasusStepSoundGenerator extends QuadrapedalStepSoundGenerator {
     }
 
     protected void simulateFlying(LivingEntity ply) {
-        final long now = System.currentTimeMillis();
+        final long now = clock.getTime();
 
         if (updateState(motionX, motionY, motionZ, ply.xxa)) {
             nextFlapTime = now + variator.FLIGHT_TRANSITION_TIME;
@@ -125,7 +128,7 @@ class PegasusStepSoundGenerator extends QuadrapedalStepSoundGenerator {
                         variator.WING_IMMOBILE_FADE_START + variator.WING_IMMOBILE_FADE_DURATION);
             }
 
-            acoustics.playAcoustic(ply, "_WING", State.WALK, Options.singular("gliding_volume", volume));
+            acoustics.playAcoustic(ply, isolator.getAcoustic(FixedAcoustic.WING), State.WALK, options.reset().withGlidingVolume(volume));
         }
     }
 
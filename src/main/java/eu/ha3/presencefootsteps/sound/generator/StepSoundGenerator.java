@@ -21,4 +21,10 @@ public interface StepSoundGenerator {
      * Sets this engine to use the parameters from a new isolator.
      */
     default void setIsolator(Isolator isolator) {}
+
+    /**
+     * Tells this generator which frame it's about to be run on.
+     * Entities aren't always run every frame, so this is how it knows how many frames its motion is spread over.
+     */
+    default void setFrame(long frame) {}
 }
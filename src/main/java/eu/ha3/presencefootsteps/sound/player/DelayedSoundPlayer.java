@@ -2,13 +2,27 @@ package eu.ha3.presencefootsteps.sound.player;
 
 import eu.ha3.presencefootsteps.PresenceFootsteps;
 import eu.ha3.presencefootsteps.sound.Options;
+import eu.ha3.presencefootsteps.sound.State;
+import eu.ha3.presencefootsteps.util.Clock;
 import eu.ha3.presencefootsteps.util.MathUtil;
 import net.minecraft.world.entity.Entity;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
 import java.util.Random;
+import java.util.function.IntSupplier;
 
+/**
+ * Holds on to sounds until the time they are meant to be played.
+ *
+ * Pending sounds are kept in a queue ordered by the earliest time they may be played,
+ * and alongside it in one ordered by how much they matter, scored the same way the sound batch does.
+ * Both track where each sound sits in them, so scheduling, dispatching and evicting are all O(log n).
+ * When the queue is full the least important pending sound makes way for a new one that outranks it,
+ * and anything that doesn't is dropped, which keeps the queue from growing without bound.
+ */
 class DelayedSoundPlayer implements SoundPlayer {
 
     private static final boolean USING_LATENESS = true;
@@ -18,15 +32,22 @@ class DelayedSoundPlayer implements SoundPlayer {
 
     private static final double EARLYNESS_THRESHOLD_POW = 0.75D;
 
-    private final List<PendingSound> pending = new ArrayList<>();
+    private final Heap byTime = new Heap(Comparator.comparingLong(s -> s.earliest), 0);
+
+    private final Heap byPriority = new Heap((a, b) -> Float.compare(a.priority, b.priority), 1);
+
+    private final Deque<PendingSound> pool = new ArrayDeque<>();
 
     private final SoundPlayer immediate;
 
-    private long nextPlayTime;
-    private long currentTime;
+    private final Clock clock;
 
-    public DelayedSoundPlayer(SoundPlayer immediate) {
+    private final IntSupplier capacity;
+
+    public DelayedSoundPlayer(SoundPlayer immediate, Clock clock, IntSupplier capacity) {
         this.immediate = immediate;
+        this.clock = clock;
+        this.capacity = capacity;
     }
 
     @Override
@@ -35,87 +56,217 @@ class DelayedSoundPlayer implements SoundPlayer {
     }
 
     @Override
-    public void playSound(Entity location, String soundName, float volume, float pitch, Options options) {
-        pending.add(new PendingSound(location, soundName, volume, pitch, options));
+    public void playSound(Entity location, String soundName, float volume, float pitch, State event, Options options) {
+        float priority = SoundBatch.getPriority(location, volume, (float)ImmediateSoundPlayer.getDistance(location), event);
+        int max = capacity.getAsInt();
+
+        while (byTime.size() >= max) {
+            PendingSound lowest = byPriority.peek();
+
+            if (lowest.priority >= priority) {
+                ImmediateSoundPlayer.totalDropped.increment();
+                return;
+            }
+
+            byPriority.poll();
+            byTime.remove(lowest);
+            release(lowest);
+            ImmediateSoundPlayer.totalDropped.increment();
+        }
+
+        PendingSound sound = pool.isEmpty() ? new PendingSound() : pool.pop();
+        sound.set(location, soundName, volume, pitch, priority, event, options);
+        byTime.add(sound);
+        byPriority.add(sound);
+    }
+
+    public int getPendingCount() {
+        return byTime.size();
     }
 
     @Override
     public void think() {
-        currentTime = System.currentTimeMillis();
+        long time = clock.getTime();
 
-        if (pending.isEmpty() || currentTime < nextPlayTime) {
-            return;
-        }
+        while (byTime.size() > 0 && byTime.peek().earliest <= time) {
+            PendingSound sound = byTime.poll();
+            byPriority.remove(sound);
+
+            if (time <= sound.latest) {
+                if (USING_EARLYNESS && time < sound.timeToPlay && PresenceFootsteps.logger.isDebugEnabled()) {
+                    PresenceFootsteps.logger.debug("Playing early sound (early by " + (sound.timeToPlay - time) + "ms, tolerence is " + (sound.timeToPlay - sound.earliest) + "ms)");
+                }
+
+                immediate.playSound(sound.location, sound.soundName, sound.volume, sound.pitch, sound.event, Options.EMPTY);
+            } else {
+                ImmediateSoundPlayer.totalDropped.increment();
 
-        nextPlayTime = Long.MAX_VALUE;
+                if (PresenceFootsteps.logger.isDebugEnabled()) {
+                    PresenceFootsteps.logger.debug("Skipped late sound (late by " + (time - sound.timeToPlay) + "ms, tolerence is " + (sound.latest - sound.timeToPlay) + "ms)");
+                }
+            }
+
+            release(sound);
+        }
+    }
 
-        pending.removeIf(PendingSound::tick);
+    private void release(PendingSound sound) {
+        sound.location = null;
+        sound.soundName = null;
+        sound.event = null;
+        pool.push(sound);
     }
 
     private class PendingSound {
-        private final Entity location;
+        /**
+         * Where this sound sits in each of the heaps, by the heaps' slots.
+         */
+        private final int[] heapIndex = new int[2];
 
-        private final String soundName;
+        private Entity location;
 
-        private final float volume;
-        private final float pitch;
+        private String soundName;
 
-        private final long timeToPlay;
-        private final long maximum;
+        private float volume;
+        private float pitch;
 
-        public PendingSound(Entity location, String soundName, float volume, float pitch, Options options) {
+        private float priority;
+
+        private State event;
+
+        private long timeToPlay;
+
+        /**
+         * The earliest time this sound may be played.
+         */
+        private long earliest;
+
+        /**
+         * The latest time this sound may be played before it is skipped.
+         */
+        private long latest;
+
+        void set(Entity location, String soundName, float volume, float pitch, float priority, State event, Options options) {
             this.location = location;
             this.soundName = soundName;
             this.volume = volume;
             this.pitch = pitch;
+            this.priority = priority;
+            this.event = event;
+
+            long maximum = options.isSkippable() ? -1L : options.getDelayMax();
 
-            maximum = options.containsKey("skippable") ? -1L : options.get("delay_max");
-            timeToPlay = System.currentTimeMillis() + Math.max(MathUtil.randAB(getRNG(),
-                    options.get("delay_min"),
-                    options.get("delay_max")
-            ), nextPlayTime);
+            timeToPlay = clock.getTime() + MathUtil.randAB(getRNG(),
+                    options.getDelayMin(),
+                    options.getDelayMax()
+            );
+
+            earliest = USING_EARLYNESS && maximum > 0
+                    ? timeToPlay - (long)Math.pow(maximum, EARLYNESS_THRESHOLD_POW)
+                    : timeToPlay;
+
+            latest = USING_LATENESS && maximum >= 0
+                    ? timeToPlay + (long)Math.floor(maximum / LATENESS_THRESHOLD)
+                    : Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * A binary min-heap of pending sounds that records each sound's position in it,
+     * so a sound can be taken out from anywhere without searching for it.
+     */
+    private static final class Heap {
+        private final Comparator<PendingSound> order;
+
+        /**
+         * Which of a sound's heap indices belongs to this heap.
+         */
+        private final int slot;
+
+        private PendingSound[] items = new PendingSound[16];
+
+        private int size;
+
+        Heap(Comparator<PendingSound> order, int slot) {
+            this.order = order;
+            this.slot = slot;
+        }
+
+        int size() {
+            return size;
+        }
+
+        PendingSound peek() {
+            return items[0];
         }
 
-        public boolean tick() {
-            switch (nextState(currentTime)) {
-            case PLAYING:
-                immediate.playSound(location, soundName, volume, pitch, Options.EMPTY);
-                return false;
-            case SKIPPING:
-                return true;
-            default:
-                nextPlayTime = timeToPlay;
-                return false;
+        void add(PendingSound sound) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
             }
+            items[size] = sound;
+            sound.heapIndex[slot] = size;
+            siftUp(size++);
         }
 
-        private State nextState(long time) {
-            if (time >= timeToPlay || USING_EARLYNESS
-             && time >= timeToPlay - Math.pow(maximum, EARLYNESS_THRESHOLD_POW)) {
-                if (USING_EARLYNESS && time < timeToPlay) {
-                    PresenceFootsteps.logger.debug("Playing early sound (early by " + (timeToPlay - time) + "ms, tolerence is " + Math.pow(maximum, EARLYNESS_THRESHOLD_POW));
-                }
+        PendingSound poll() {
+            PendingSound first = items[0];
+            remove(first);
+            return first;
+        }
 
-                long lateness = time - timeToPlay;
+        void remove(PendingSound sound) {
+            int i = sound.heapIndex[slot];
+            PendingSound last = items[--size];
+            items[size] = null;
 
-                if (!USING_LATENESS
-                        || maximum < 0
-                        || lateness <= maximum / LATENESS_THRESHOLD) {
-                    return State.PLAYING;
+            if (i < size) {
+                items[i] = last;
+                last.heapIndex[slot] = i;
+                siftDown(i);
+                siftUp(last.heapIndex[slot]);
+            }
+        }
+
+        private void siftUp(int i) {
+            PendingSound sound = items[i];
+
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (order.compare(sound, items[parent]) >= 0) {
+                    break;
                 }
+                move(parent, i);
+                i = parent;
+            }
 
-                PresenceFootsteps.logger.debug("Skipped late sound (late by " + lateness + "ms, tolerence is " + maximum / LATENESS_THRESHOLD + "ms)");
+            items[i] = sound;
+            sound.heapIndex[slot] = i;
+        }
+
+        private void siftDown(int i) {
+            PendingSound sound = items[i];
+            int half = size >>> 1;
 
-                return State.SKIPPING;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && order.compare(items[child + 1], items[child]) < 0) {
+                    child++;
+                }
+                if (order.compare(sound, items[child]) <= 0) {
+                    break;
+                }
+                move(child, i);
+                i = child;
             }
 
-            return State.PENDING;
+            items[i] = sound;
+            sound.heapIndex[slot] = i;
         }
-    }
 
-    enum State {
-        PENDING,
-        PLAYING,
-        SKIPPING
+        private void move(int from, int to) {
+            items[to] = items[from];
+            items[to].heapIndex[slot] = to;
+        }
     }
 }
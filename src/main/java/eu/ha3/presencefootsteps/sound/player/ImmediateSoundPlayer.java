@@ -1,19 +1,22 @@
 package eu.ha3.presencefootsteps.sound.player;
 
 import eu.ha3.presencefootsteps.sound.Options;
+import eu.ha3.presencefootsteps.sound.State;
+import eu.ha3.presencefootsteps.util.Clock;
 import eu.ha3.presencefootsteps.util.PlayerUtil;
 import eu.ha3.presencefootsteps.world.Association;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.level.block.Blocks;
 import net.minecraft.world.level.block.SoundType;
 import net.minecraft.client.Minecraft;
-import net.minecraft.client.resources.sounds.SoundInstance;
-import net.minecraft.client.resources.sounds.SimpleSoundInstance;
 import net.minecraft.world.entity.Entity;
-import net.minecraft.sounds.SoundSource;
 import net.minecraft.resources.ResourceLocation;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
 
 /**
  * A Library that can also play sounds and default footsteps.
@@ -22,9 +25,48 @@ import java.util.Random;
  */
 public class ImmediateSoundPlayer implements SoundPlayer, StepSoundPlayer {
 
+    /**
+     * Sounds handed to the sound manager, and ones that were dropped to stay within the voice budget or pending queue.
+     */
+    static final LongAdder totalPlayed = new LongAdder();
+    static final LongAdder totalDropped = new LongAdder();
+
     private final Random random = new Random();
 
-    private final DelayedSoundPlayer delayedPlayer = new DelayedSoundPlayer(this);
+    private final DelayedSoundPlayer delayedPlayer;
+
+    private final SoundBatch batch;
+
+    /**
+     * Sound ids by name, one map per domain, so they aren't parsed again for every step.
+     */
+    private final Map<String, ResourceLocation> stereoIds = new HashMap<>();
+    private final Map<String, ResourceLocation> monoIds = new HashMap<>();
+    private final Map<String, ResourceLocation> namespacedIds = new HashMap<>();
+
+    public ImmediateSoundPlayer(Clock clock, IntSupplier maxPendingSounds, IntSupplier maxVoices) {
+        delayedPlayer = new DelayedSoundPlayer(this, clock, maxPendingSounds);
+        batch = new SoundBatch(clock, maxVoices);
+    }
+
+    public static long getTotalPlayed() {
+        return totalPlayed.sum();
+    }
+
+    public static long getTotalDropped() {
+        return totalDropped.sum();
+    }
+
+    /**
+     * The number of delayed sounds waiting for their time to play.
+     */
+    public int getPendingSounds() {
+        return delayedPlayer.getPendingCount();
+    }
+
+    public int getActiveVoices() {
+        return batch.getActiveVoices();
+    }
 
     @Override
     public Random getRNG() {
@@ -42,64 +84,58 @@ public class ImmediateSoundPlayer implements SoundPlayer, StepSoundPlayer {
                 soundType = Blocks.SNOW.getSoundType(beside);
             }
 
-            playAttenuatedSound(assos.getSource(), soundType.getStepSound().getLocation().toString(), soundType.getVolume() * 0.15F, soundType.getPitch());
+            playAttenuatedSound(assos.getSource(), soundType.getStepSound().getLocation(), soundType.getVolume() * 0.15F, soundType.getPitch(), State.WALK);
         }
     }
 
     @Override
-    public void playSound(Entity location, String soundName, float volume, float pitch, Options options) {
+    public void playSound(Entity location, String soundName, float volume, float pitch, State event, Options options) {
 
-        if (options.containsKey("delay_min") && options.containsKey("delay_max")) {
-            delayedPlayer.playSound(location, soundName, volume, pitch, options);
+        if (options.hasDelay()) {
+            delayedPlayer.playSound(location, soundName, volume, pitch, event, options);
 
             return;
         }
 
-        playAttenuatedSound(location, soundName, volume, pitch);
+        playAttenuatedSound(location, getSoundId(soundName, location), volume, pitch, event);
     }
 
-    private void playAttenuatedSound(Entity location, String soundName, float volume, float pitch) {
-        Minecraft mc = Minecraft.getInstance();
-        double distance = mc.gameRenderer.getMainCamera().getPosition().distanceToSqr(location.position());
+    /**
+     * How far a sound at the given entity would be from the listener, in blocks.
+     */
+    static double getDistance(Entity location) {
+        return Math.sqrt(Minecraft.getInstance().gameRenderer.getMainCamera().getPosition().distanceToSqr(location.position()));
+    }
 
-        volume *= (100 - distance) / 100F;
+    private void playAttenuatedSound(Entity location, ResourceLocation id, float volume, float pitch, State event) {
+        double distance = getDistance(location);
 
-        SimpleSoundInstance sound = createSound(getSoundId(soundName, location), volume, pitch, location);
+        volume *= (100 - distance) / 100F;
 
-        if (distance > 100) {
-            mc.getSoundManager().playDelayed(sound, (int) Math.floor(Math.sqrt(distance) / 2));
-        } else {
-            mc.getSoundManager().play(sound);
+        // Linear attenuation leaves a sound silent past 16 blocks per unit of volume
+        if (volume <= 0 || distance >= Math.max(volume, 1) * 16) {
+            return;
         }
+
+        batch.add(location, id, volume, pitch, (float) distance, event, distance > 10 ? (int) Math.floor(distance / 2) : 0);
     }
 
     @Override
     public void think() {
         delayedPlayer.think();
-    }
-
-    private SimpleSoundInstance createSound(ResourceLocation id, float volume, float pitch, Entity entity) {
-        return new SimpleSoundInstance(id,
-                SoundSource.MASTER,
-                volume, pitch, false, 0,
-                SoundInstance.Attenuation.LINEAR,
-                (float) entity.getX(),
-                (float) entity.getY(),
-                (float) entity.getZ(),
-                false);
+        batch.flush();
     }
 
     private ResourceLocation getSoundId(String name, Entity location) {
         if (name.indexOf(':') >= 0) {
-            return new ResourceLocation(name);
+            return namespacedIds.computeIfAbsent(name, ResourceLocation::new);
         }
 
-        String domain = "presencefootsteps";
-
-        if (!PlayerUtil.isClientPlayer(location)) {
-            domain += "mono"; // Switch to mono if playing another player
+        if (PlayerUtil.isClientPlayer(location)) {
+            return stereoIds.computeIfAbsent(name, n -> new ResourceLocation("presencefootsteps", n));
         }
 
-        return new ResourceLocation(domain, name);
+        // Switch to mono if playing another player
+        return monoIds.computeIfAbsent(name, n -> new ResourceLocation("presencefootstepsmono", n));
     }
 }
@@ -0,0 +1,236 @@
+package eu.ha3.presencefootsteps.sound.player;
+
+import eu.ha3.presencefootsteps.sound.State;
+import eu.ha3.presencefootsteps.util.Clock;
+import eu.ha3.presencefootsteps.util.PlayerUtil;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.resources.sounds.SimpleSoundInstance;
+import net.minecraft.client.resources.sounds.SoundInstance;
+import net.minecraft.client.sounds.SoundManager;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.sounds.SoundSource;
+import net.minecraft.world.entity.Entity;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.IntSupplier;
+
+/**
+ * Collects the sounds requested over a frame so they can be handed to the sound manager together.
+ *
+ * Requests for the same sound close to one another are played as one, and the number of
+ * our sounds playing at once is capped so footsteps don't take every channel the game has.
+ * When there are more requests than free voices the most important ones are played first:
+ * the client player's own, then the loudest and closest, favouring landings over shuffling about.
+ */
+class SoundBatch {
+
+    /**
+     * Added to the priority of the client player's sounds so they always go first.
+     */
+    private static final float CLIENT_PLAYER_PRIORITY = 1000;
+
+    /**
+     * Requests for the same sound closer together than this (squared, in blocks) are merged.
+     */
+    private static final double MERGE_DISTANCE_SQ = 1;
+
+    /**
+     * How long past its delay a sound is still counted as a voice before it has started playing.
+     */
+    private static final long START_GRACE = 250;
+
+    private static final Comparator<Request> HIGHEST_PRIORITY_FIRST = (a, b) -> Float.compare(b.priority, a.priority);
+
+    private final List<Request> requests = new ArrayList<>();
+
+    private final Deque<Request> pool = new ArrayDeque<>();
+
+    private final List<Voice> voices = new ArrayList<>();
+
+    private final Clock clock;
+
+    private final IntSupplier maxVoices;
+
+    SoundBatch(Clock clock, IntSupplier maxVoices) {
+        this.clock = clock;
+        this.maxVoices = maxVoices;
+    }
+
+    /**
+     * Adds a sound to be played at the next flush.
+     *
+     * @param distance How far the sound is from the listener, in blocks.
+     * @param delay    The number of ticks the sound manager should wait before playing it.
+     */
+    public void add(Entity location, ResourceLocation id, float volume, float pitch, float distance, State event, int delay) {
+        float priority = getPriority(location, volume, distance, event);
+
+        double x = location.getX();
+        double y = location.getY();
+        double z = location.getZ();
+
+        for (Request request : requests) {
+            if (request.id.equals(id) && request.distanceToSqr(x, y, z) < MERGE_DISTANCE_SQ) {
+                if (volume > request.volume) {
+                    request.volume = volume;
+                    request.pitch = pitch;
+                }
+                request.priority = Math.max(request.priority, priority);
+                return;
+            }
+        }
+
+        Request request = pool.isEmpty() ? new Request() : pool.pop();
+        request.set(id, volume, pitch, priority, delay, x, y, z);
+        requests.add(request);
+    }
+
+    /**
+     * Scores how much a sound matters, higher being more important. Also used to decide which delayed sounds to keep.
+     */
+    static float getPriority(Entity location, float volume, float distance, State event) {
+        float priority = volume * getWeight(event) / (1 + distance);
+
+        if (PlayerUtil.isClientPlayer(location)) {
+            priority += CLIENT_PLAYER_PRIORITY;
+        }
+
+        return priority;
+    }
+
+    private static float getWeight(State event) {
+        switch (event) {
+            case LAND:
+                return 4;
+            case JUMP:
+                return 3;
+            case RUN:
+            case CLIMB_RUN:
+            case DOWN_RUN:
+            case UP_RUN:
+                return 2;
+            case STAND:
+            case WANDER:
+                return 0.5F;
+            default:
+                return 1;
+        }
+    }
+
+    /**
+     * Plays everything collected since the last flush, most important first, for as many voices as are free.
+     * Whatever doesn't fit is dropped without ever creating a sound instance for it.
+     */
+    public void flush() {
+        if (requests.isEmpty() && voices.isEmpty()) {
+            return;
+        }
+
+        SoundManager manager = Minecraft.getInstance().getSoundManager();
+
+        long time = clock.getTime();
+        // pruned even on quiet frames so the count of active voices stays current
+        voices.removeIf(voice -> time > voice.starts && !manager.isActive(voice.sound));
+
+        if (requests.isEmpty()) {
+            return;
+        }
+
+        requests.sort(HIGHEST_PRIORITY_FIRST);
+
+        int max = maxVoices.getAsInt();
+
+        for (Request request : requests) {
+            if (voices.size() < max) {
+                SoundInstance sound = request.createSound();
+
+                if (request.delay > 0) {
+                    manager.playDelayed(sound, request.delay);
+                } else {
+                    manager.play(sound);
+                }
+
+                voices.add(new Voice(sound, time + request.delay * 50L + START_GRACE));
+                ImmediateSoundPlayer.totalPlayed.increment();
+            } else {
+                ImmediateSoundPlayer.totalDropped.increment();
+            }
+
+            pool.push(request);
+        }
+
+        requests.clear();
+    }
+
+    /**
+     * The number of our sounds playing or about to play, as of the last flush.
+     */
+    public int getActiveVoices() {
+        return voices.size();
+    }
+
+    private static class Voice {
+        private final SoundInstance sound;
+
+        /**
+         * The time by which the sound should have started playing.
+         */
+        private final long starts;
+
+        Voice(SoundInstance sound, long starts) {
+            this.sound = sound;
+            this.starts = starts;
+        }
+    }
+
+    private static class Request {
+        private ResourceLocation id;
+
+        private float volume;
+        private float pitch;
+
+        private float priority;
+
+        /**
+         * The delay in ticks before the sound manager plays this sound.
+         */
+        private int delay;
+
+        private double x;
+        private double y;
+        private double z;
+
+        void set(ResourceLocation id, float volume, float pitch, float priority, int delay, double x, double y, double z) {
+            this.id = id;
+            this.volume = volume;
+            this.pitch = pitch;
+            this.priority = priority;
+            this.delay = delay;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+
+        double distanceToSqr(double x, double y, double z) {
+            double dx = this.x - x;
+            double dy = this.y - y;
+            double dz = this.z - z;
+            return dx * dx + dy * dy + dz * dz;
+        }
+
+        SoundInstance createSound() {
+            return new SimpleSoundInstance(id,
+                    SoundSource.MASTER,
+                    volume, pitch, false, 0,
+                    SoundInstance.Attenuation.LINEAR,
+                    (float) x,
+                    (float) y,
+                    (float) z,
+                    false);
+        }
+    }
+}
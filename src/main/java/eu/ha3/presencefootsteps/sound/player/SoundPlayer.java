@@ -1,15 +1,16 @@
 package eu.ha3.presencefootsteps.sound.player;
 
 import eu.ha3.presencefootsteps.sound.Options;
+import eu.ha3.presencefootsteps.sound.State;
 import net.minecraft.world.entity.Entity;
 
 import java.util.Random;
 
 public interface SoundPlayer {
     /**
-     * Plays a sound.
+     * Plays a sound for the given event.
      */
-    void playSound(Entity location, String soundName, float volume, float pitch, Options options);
+    void playSound(Entity location, String soundName, float volume, float pitch, State event, Options options);
 
     /**
      * Returns a random number generator.
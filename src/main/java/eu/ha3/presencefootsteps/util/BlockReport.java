@@ -156,7 +156,7 @@ public class BlockReport {
         Minecraft.getInstance().gui.getChat().addMessage(text);
     }
 
-    static Path getUniqueFileName(Path directory, String baseName, String ext) {
+    public static Path getUniqueFileName(Path directory, String baseName, String ext) {
         Path loc = null;
 
         int counter = 0;
@@ -0,0 +1,31 @@
+package eu.ha3.presencefootsteps.util;
+
+/**
+ * The time, in milliseconds, seen by the step generators and sound players.
+ *
+ * The engine updates it once at the start of each frame so everything simulated
+ * in that frame sees the same time. Headless runs can set or advance it by hand instead.
+ */
+public class Clock {
+
+    private long time = System.currentTimeMillis();
+
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * Moves the clock to the current system time.
+     */
+    public void update() {
+        time = System.currentTimeMillis();
+    }
+
+    public void set(long time) {
+        this.time = time;
+    }
+
+    public void advance(long millis) {
+        time += millis;
+    }
+}
@@ -7,10 +7,12 @@ import net.minecraft.world.entity.player.Player;
 
 public class PlayerUtil {
     public static boolean isClientPlayer(Entity entity) {
+        if (!(entity instanceof Player) || entity instanceof RemotePlayer) {
+            return false;
+        }
+
         Player client = Minecraft.getInstance().player;
-        return entity instanceof Player
-                && !(entity instanceof RemotePlayer)
-                && client != null
+        return client != null
                 && (client == entity || client.getUUID().equals(entity.getUUID()));
     }
 }
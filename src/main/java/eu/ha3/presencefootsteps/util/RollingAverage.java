@@ -0,0 +1,38 @@
+package eu.ha3.presencefootsteps.util;
+
+import java.util.Arrays;
+
+/**
+ * The average of the last few values added, kept as a running sum so reading it is free.
+ */
+public class RollingAverage {
+
+    private final long[] samples;
+
+    private int next;
+    private int count;
+
+    private long sum;
+
+    public RollingAverage(int window) {
+        samples = new long[window];
+    }
+
+    public void add(long value) {
+        sum += value - samples[next];
+        samples[next] = value;
+        next = (next + 1) % samples.length;
+        count = Math.min(count + 1, samples.length);
+    }
+
+    public double getAverage() {
+        return count == 0 ? 0 : sum / (double)count;
+    }
+
+    public void clear() {
+        Arrays.fill(samples, 0);
+        next = 0;
+        count = 0;
+        sum = 0;
+    }
+}
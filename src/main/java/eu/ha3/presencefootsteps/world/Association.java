@@ -1,5 +1,6 @@
 package eu.ha3.presencefootsteps.world;
 
+import eu.ha3.presencefootsteps.sound.acoustics.AcousticSet;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.level.block.Blocks;
 import net.minecraft.world.level.block.SoundType;
@@ -8,6 +9,7 @@ import net.minecraft.world.entity.Entity;
 import net.minecraft.core.BlockPos;
 
 import javax.annotation.Nullable;
+import java.util.Objects;
 
 public class Association {
 
@@ -19,6 +21,8 @@ public class Association {
 
     private String data = Emitter.NOT_EMITTER;
 
+    private AcousticSet acoustics = AcousticSet.EMPTY;
+
     private Entity source;
 
     public Association() {
@@ -48,6 +52,16 @@ public class Association {
         return this;
     }
 
+    public Association with(AcousticSet acoustics) {
+
+        if (!isNull()) {
+            this.data = acoustics.getName();
+            this.acoustics = acoustics;
+        }
+
+        return this;
+    }
+
     public boolean isNull() {
         return this == NOT_EMITTER;
     }
@@ -64,6 +78,10 @@ public class Association {
         return data;
     }
 
+    public AcousticSet getAcoustics() {
+        return acoustics;
+    }
+
     public Entity getSource() {
         return source;
     }
@@ -79,4 +97,24 @@ public class Association {
     public SoundType getSoundGroup() {
         return blockState.getSoundType();
     }
+
+    /**
+     * Two associations are the same if they play the same acoustics for the same block,
+     * regardless of which entity they were found for.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        return this == obj || (obj != null && getClass() == obj.getClass()) && equals((Association) obj);
+    }
+    private boolean equals(Association other) {
+        return !isNull() && !other.isNull()
+                && blockState == other.blockState
+                && Objects.equals(pos, other.pos)
+                && Objects.equals(data, other.data);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(blockState, pos, data);
+    }
 }
@@ -0,0 +1,204 @@
+package eu.ha3.presencefootsteps.world;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction.Axis;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.phys.AABB;
+import net.minecraft.world.phys.shapes.VoxelShape;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A small cache of the associations most recently resolved for a single entity.
+ *
+ * Entries are keyed on the block position and strategy they were resolved with, and are
+ * discarded whenever the client is told about a block change or a chunk (re)load.
+ * Anything that can change without the world telling us (weather, golems wandering about)
+ * is covered by only keeping an entry for a short while.
+ *
+ * It also holds the scratch space the solver works in for that entity,
+ * so resolving a step that's already cached doesn't allocate anything.
+ */
+public final class AssociationCache {
+
+    private static final int CAPACITY = 8;
+
+    /**
+     * How long, in ticks, an entry is trusted for.
+     */
+    private static final long MAX_AGE = 20;
+
+    private static final AtomicInteger generation = new AtomicInteger();
+
+    private static final LongAdder totalHits = new LongAdder();
+    private static final LongAdder totalMisses = new LongAdder();
+
+    private final Entry[] entries = new Entry[CAPACITY];
+
+    private long hits;
+    private long misses;
+
+    /**
+     * The block currently being looked up.
+     */
+    final BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos();
+
+    /**
+     * The block above the cursor.
+     */
+    final BlockPos.MutableBlockPos above = new BlockPos.MutableBlockPos();
+
+    /**
+     * The block an association is being resolved for, which may be above or below the cursor.
+     */
+    final BlockPos.MutableBlockPos target = new BlockPos.MutableBlockPos();
+
+    private double colliderMinX;
+    private double colliderMinY;
+    private double colliderMinZ;
+    private double colliderMaxX;
+    private double colliderMaxY;
+    private double colliderMaxZ;
+
+    public AssociationCache() {
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = new Entry();
+        }
+    }
+
+    /**
+     * Marks every entry in every cache as out of date.
+     * Called when blocks or chunks on the client change.
+     */
+    public static void invalidateAll() {
+        generation.incrementAndGet();
+    }
+
+    public static long getTotalHits() {
+        return totalHits.sum();
+    }
+
+    public static long getTotalMisses() {
+        return totalMisses.sum();
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Sets the bounds entries are tested against, as the given box moved down by offsetY and grown by inflate on all sides.
+     */
+    void setCollider(AABB box, double offsetY, double inflate) {
+        colliderMinX = box.minX - inflate;
+        colliderMinY = box.minY + offsetY - inflate;
+        colliderMinZ = box.minZ - inflate;
+        colliderMaxX = box.maxX + inflate;
+        colliderMaxY = box.maxY + offsetY + inflate;
+        colliderMaxZ = box.maxZ + inflate;
+    }
+
+    /**
+     * Whether an entry is close enough to the collider to be heard.
+     */
+    boolean isTouching(Entry entry) {
+        return !entry.bounded || (
+                   entry.minX < colliderMaxX && entry.maxX > colliderMinX
+                && entry.minY < colliderMaxY && entry.maxY > colliderMinY
+                && entry.minZ < colliderMaxZ && entry.maxZ > colliderMinZ);
+    }
+
+    /**
+     * Gets the entry previously resolved for a location, or null if it has to be resolved again.
+     */
+    @Nullable
+    Entry get(Level world, BlockPos pos, String strategy) {
+        long key = pos.asLong();
+        Entry entry = entries[slot(key, strategy)];
+
+        if (entry.level == world
+                && entry.pos == key
+                && entry.generation == generation.get()
+                && entry.strategy.equals(strategy)
+                && world.getGameTime() < entry.expiry) {
+            hits++;
+            totalHits.increment();
+            return entry;
+        }
+
+        misses++;
+        totalMisses.increment();
+        return null;
+    }
+
+    /**
+     * Claims the entry for a location that is about to be resolved.
+     */
+    Entry put(Level world, BlockPos pos, String strategy) {
+        long key = pos.asLong();
+        Entry entry = entries[slot(key, strategy)];
+
+        entry.level = world;
+        entry.pos = key;
+        entry.strategy = strategy;
+        entry.generation = generation.get();
+        entry.expiry = world.getGameTime() + MAX_AGE;
+        entry.association = Association.NOT_EMITTER;
+        entry.bounded = false;
+
+        return entry;
+    }
+
+    private static int slot(long key, String strategy) {
+        long hash = (key ^ strategy.hashCode()) * 0x9E3779B97F4A7C15L;
+        return (int)(hash >>> 32) & (CAPACITY - 1);
+    }
+
+    static final class Entry {
+        @Nullable
+        private Level level;
+        private long pos;
+        private String strategy = "";
+        private int generation;
+        private long expiry;
+
+        /**
+         * The resolved association.
+         */
+        Association association = Association.NOT_EMITTER;
+
+        /**
+         * The bounds of the block the association came from, if the entity has to be touching it to hear anything.
+         */
+        private boolean bounded;
+        private double minX;
+        private double minY;
+        private double minZ;
+        private double maxX;
+        private double maxY;
+        private double maxZ;
+
+        void setBounds(VoxelShape shape, BlockPos pos) {
+            bounded = true;
+            minX = shape.min(Axis.X) + pos.getX();
+            minY = shape.min(Axis.Y) + pos.getY();
+            minZ = shape.min(Axis.Z) + pos.getZ();
+            maxX = shape.max(Axis.X) + pos.getX();
+            maxY = shape.max(Axis.Y) + pos.getY();
+            maxZ = shape.max(Axis.Z) + pos.getZ();
+        }
+
+        /**
+         * Stops this entry from being served again. Used for results that depend on things that move.
+         */
+        void discardAfterUse() {
+            expiry = Long.MIN_VALUE;
+        }
+    }
+}
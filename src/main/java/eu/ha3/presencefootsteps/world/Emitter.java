@@ -19,4 +19,11 @@ public final class Emitter {
         return isResult(association) && !isNonEmitter(association);
     }
 
+    /**
+     * Tells if an association names acoustics to play, rather than being one of the markers above.
+     */
+    public static boolean isAcoustic(String association) {
+        return isEmitter(association) && !MESSY_GROUND.equals(association);
+    }
+
 }
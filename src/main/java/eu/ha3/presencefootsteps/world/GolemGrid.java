@@ -0,0 +1,93 @@
+package eu.ha3.presencefootsteps.world;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2BooleanOpenHashMap;
+import net.minecraft.client.multiplayer.ClientLevel;
+import net.minecraft.core.BlockPos;
+import net.minecraft.util.Mth;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.phys.AABB;
+
+import javax.annotation.Nullable;
+
+/**
+ * The entities near the player that the golem map has sounds for, indexed by every block they occupy.
+ *
+ * Rebuilt once per frame so the solver can find the golem on a block without
+ * asking the level for entities at every step.
+ */
+public class GolemGrid {
+
+    /**
+     * How far from the player golems are picked up. A little more than the range footsteps are simulated in,
+     * since the solver looks at the blocks next to an entity as well.
+     */
+    private static final int RANGE = 20;
+
+    private final Long2ObjectOpenHashMap<Entity> cells = new Long2ObjectOpenHashMap<>();
+
+    private final Reference2BooleanOpenHashMap<EntityType<?>> mappedTypes = new Reference2BooleanOpenHashMap<>();
+
+    @Nullable
+    private Lookup<EntityType<?>> golemMap;
+
+    public void update(Player player, Lookup<EntityType<?>> golemMap) {
+        cells.clear();
+
+        if (golemMap != this.golemMap) {
+            this.golemMap = golemMap;
+            mappedTypes.clear();
+        }
+
+        if (golemMap.getSubstrates().isEmpty() || !(player.level instanceof ClientLevel)) {
+            return;
+        }
+
+        double minX = player.getX() - RANGE;
+        double minY = player.getY() - RANGE;
+        double minZ = player.getZ() - RANGE;
+        double maxX = player.getX() + RANGE;
+        double maxY = player.getY() + RANGE;
+        double maxZ = player.getZ() + RANGE;
+
+        for (Entity entity : ((ClientLevel)player.level).entitiesForRendering()) {
+            if (entity instanceof Player || entity.isRemoved() || !isMapped(entity.getType())) {
+                continue;
+            }
+
+            AABB box = entity.getBoundingBox();
+
+            if (box.maxX < minX || box.minX > maxX
+             || box.maxY < minY || box.minY > maxY
+             || box.maxZ < minZ || box.minZ > maxZ) {
+                continue;
+            }
+
+            // every block whose unit box the entity's bounding box intersects
+            for (int x = Mth.floor(box.minX), toX = Mth.ceil(box.maxX); x < toX; x++) {
+                for (int y = Mth.floor(box.minY), toY = Mth.ceil(box.maxY); y < toY; y++) {
+                    for (int z = Mth.floor(box.minZ), toZ = Mth.ceil(box.maxZ); z < toZ; z++) {
+                        cells.putIfAbsent(BlockPos.asLong(x, y, z), entity);
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean isMapped(EntityType<?> type) {
+        if (!mappedTypes.containsKey(type)) {
+            mappedTypes.put(type, golemMap.contains(type));
+        }
+        return mappedTypes.getBoolean(type);
+    }
+
+    /**
+     * Gets the golem occupying a block, or null if there isn't one.
+     */
+    @Nullable
+    public Entity get(BlockPos pos) {
+        return cells.get(pos.asLong());
+    }
+}
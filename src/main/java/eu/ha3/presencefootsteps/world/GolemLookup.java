@@ -1,8 +1,12 @@
 package eu.ha3.presencefootsteps.world;
 
+import eu.ha3.presencefootsteps.sound.acoustics.AcousticLibrary;
+import eu.ha3.presencefootsteps.sound.acoustics.AcousticSet;
 import net.minecraft.world.entity.EntityType;
 import net.minecraft.resources.ResourceLocation;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
@@ -11,21 +15,60 @@ public class GolemLookup implements Lookup<EntityType<?>> {
 
     private final Map<String, Map<ResourceLocation, String>> substrates = new LinkedHashMap<>();
 
+    /**
+     * The same entries as substrates, resolved to acoustics when the lookup is compiled.
+     */
+    private volatile Map<String, Map<ResourceLocation, AcousticSet>> compiled = Collections.emptyMap();
+
     @Override
     public String getAssociation(EntityType<?> key, String substrate) {
 
-        Map<ResourceLocation, String> primitives = substrates.get(substrate);
+        Map<ResourceLocation, String> primitives = getSubstrate(substrates, substrate);
 
         if (primitives == null) {
-            // Check for default
-            primitives = substrates.get(EMPTY_SUBSTRATE);
+            return Emitter.UNASSIGNED;
         }
 
+        return primitives.getOrDefault(EntityType.getKey(key), Emitter.UNASSIGNED);
+    }
+
+    @Override
+    public AcousticSet getAcoustics(EntityType<?> key, String substrate) {
+        Map<ResourceLocation, AcousticSet> primitives = getSubstrate(compiled, substrate);
+
         if (primitives == null) {
-            return Emitter.UNASSIGNED;
+            return AcousticSet.EMPTY;
         }
 
-        return primitives.getOrDefault(EntityType.getKey(key), Emitter.UNASSIGNED);
+        return primitives.getOrDefault(EntityType.getKey(key), AcousticSet.EMPTY);
+    }
+
+    private static <V> Map<ResourceLocation, V> getSubstrate(Map<String, Map<ResourceLocation, V>> substrates, String substrate) {
+        Map<ResourceLocation, V> primitives = substrates.get(substrate);
+
+        if (primitives == null) {
+            // Check for default
+            primitives = substrates.get(EMPTY_SUBSTRATE);
+        }
+
+        return primitives;
+    }
+
+    @Override
+    public void compile(AcousticLibrary acoustics) {
+        Map<String, Map<ResourceLocation, AcousticSet>> compiled = new HashMap<>();
+
+        substrates.forEach((substrate, primitives) -> {
+            Map<ResourceLocation, AcousticSet> sets = compiled.computeIfAbsent(substrate, s -> new HashMap<>());
+
+            primitives.forEach((id, association) -> {
+                if (Emitter.isAcoustic(association)) {
+                    sets.put(id, acoustics.compile(association));
+                }
+            });
+        });
+
+        this.compiled = compiled;
     }
 
     @Override
@@ -1,13 +1,18 @@
 package eu.ha3.presencefootsteps.world;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonObject;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
 
+import java.io.IOException;
 import java.io.Reader;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public interface Loadable {
-    Gson GSON = new Gson();
-
     /**
      * Register a blockmap entry.
      */
@@ -16,12 +21,39 @@ public interface Loadable {
     /**
      * Loads new entries from the given config reader.
      * The read values will added to any existing ones.
+     *
+     * Values are read as they are streamed, without building a tree of the whole document.
+     * A key that appears more than once keeps its first position and its last value, same as a parsed JsonObject.
      */
     default void load(Reader reader) {
-        JsonObject json = GSON.fromJson(reader, JsonObject.class);
+        Map<String, String> entries = new LinkedHashMap<>();
+
+        try {
+            JsonReader json = new JsonReader(reader);
+            json.setLenient(true);
+            json.beginObject();
+
+            while (json.hasNext()) {
+                String key = json.nextName();
+                JsonToken token = json.peek();
+
+                if (token == JsonToken.STRING || token == JsonToken.NUMBER) {
+                    entries.put(key, json.nextString());
+                } else if (token == JsonToken.BOOLEAN) {
+                    entries.put(key, String.valueOf(json.nextBoolean()));
+                } else {
+                    // anything else is rare enough to leave to the tree model's conversion rules
+                    entries.put(key, JsonParser.parseReader(json).getAsString());
+                }
+            }
+
+            json.endObject();
+        } catch (MalformedJsonException e) {
+            throw new JsonSyntaxException(e);
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        }
 
-        json.entrySet().forEach(entry -> {
-            add(entry.getKey(), entry.getValue().getAsString());
-        });
+        entries.forEach(this::add);
     }
 }
@@ -1,5 +1,8 @@
 package eu.ha3.presencefootsteps.world;
 
+import eu.ha3.presencefootsteps.sound.acoustics.AcousticLibrary;
+import eu.ha3.presencefootsteps.sound.acoustics.AcousticSet;
+
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
@@ -21,6 +24,24 @@ public interface Lookup<T> extends Loadable {
      */
     String getAssociation(T state, String substrate);
 
+    /**
+     * Gets the acoustics named by the association for the given state and substrate,
+     * as resolved by the last call to {@link #compile}. Empty if the association isn't an acoustic.
+     */
+    AcousticSet getAcoustics(T state, String substrate);
+
+    /**
+     * Resolves every association in this lookup to the acoustics it names so they aren't looked up
+     * by name while solving. Names missing from the library are reported here, once.
+     */
+    void compile(AcousticLibrary acoustics);
+
+    /**
+     * Resolves every known value ahead of time so later calls to getAssociation
+     * don't have to. Values that come into existence afterwards are still resolved lazily.
+     */
+    default void bake() {}
+
     /**
      * Gets a set of all the substrates this map contains entries for.
      */
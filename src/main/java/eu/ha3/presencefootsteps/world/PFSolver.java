@@ -3,16 +3,18 @@ package eu.ha3.presencefootsteps.world;
 import eu.ha3.presencefootsteps.sound.Isolator;
 import eu.ha3.presencefootsteps.sound.Options;
 import eu.ha3.presencefootsteps.sound.State;
+import eu.ha3.presencefootsteps.sound.acoustics.AcousticSet;
+import eu.ha3.presencefootsteps.sound.acoustics.FixedAcoustic;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.level.block.SoundType;
 import net.minecraft.world.level.material.Material;
 import net.minecraft.client.player.RemotePlayer;
 import net.minecraft.world.entity.Entity;
-import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.entity.EntityType;
 import net.minecraft.tags.FluidTags;
 import net.minecraft.world.phys.AABB;
 import net.minecraft.core.BlockPos;
-import net.minecraft.core.Direction.Axis;
+import net.minecraft.core.Direction;
 import net.minecraft.util.Mth;
 import net.minecraft.world.phys.Vec3;
 import net.minecraft.world.phys.shapes.VoxelShape;
@@ -20,7 +22,7 @@ import net.minecraft.world.level.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.util.List;
+import javax.annotation.Nullable;
 import java.util.Locale;
 
 public class PFSolver implements Solver {
@@ -29,8 +31,15 @@ public class PFSolver implements Solver {
 
     private static final double TRAP_DOOR_OFFSET = 0.1;
 
+    private static final String FOOTSTEP_STRATEGY = "footstep";
+
     private final Isolator isolator;
 
+    /**
+     * Entities can be simulated on more than one thread, so each gets its own.
+     */
+    private final ThreadLocal<Options> stoppingOptions = ThreadLocal.withInitial(Options::new);
+
     public PFSolver(Isolator isolator) {
         this.isolator = isolator;
     }
@@ -51,7 +60,7 @@ public class PFSolver implements Solver {
     }
 
     @Override
-    public Association findAssociation(Entity ply, double verticalOffsetAsMinus, boolean isRightFoot) {
+    public Association findAssociation(AssociationCache cache, Entity ply, double verticalOffsetAsMinus, boolean isRightFoot) {
 
         double rot = Math.toRadians(Mth.wrapDegrees(ply.getYRot()));
 
@@ -59,14 +68,14 @@ public class PFSolver implements Solver {
 
         float feetDistanceToCenter = 0.2f * (isRightFoot ? -1 : 1);
 
-        return findAssociation(ply, new BlockPos(
+        return findAssociation(cache, ply, cache.cursor.set(
             pos.x + Math.cos(rot) * feetDistanceToCenter,
-            ply.getBoundingBox().min(Axis.Y) - TRAP_DOOR_OFFSET - verticalOffsetAsMinus,
+            ply.getBoundingBox().minY - TRAP_DOOR_OFFSET - verticalOffsetAsMinus,
             pos.z + Math.sin(rot) * feetDistanceToCenter
         ));
     }
 
-    private Association findAssociation(Entity player, BlockPos pos) {
+    private Association findAssociation(AssociationCache cache, Entity player, BlockPos.MutableBlockPos pos) {
 
         if (!(player instanceof RemotePlayer)) {
             Vec3 vel = player.getDeltaMovement();
@@ -79,11 +88,14 @@ public class PFSolver implements Solver {
         AABB collider = player.getBoundingBox();
         // normalize to the bottom of the block
         // so we can detect carpets on top of fences
-        collider = collider.move(0, -(collider.minY - Math.floor(collider.minY)), 0);
-        // add buffer
-        collider = collider.inflate(0.1);
+        // and add a buffer
+        cache.setCollider(collider, -(collider.minY - Math.floor(collider.minY)), 0.1);
+
+        int x = pos.getX();
+        int y = pos.getY();
+        int z = pos.getZ();
 
-        Association worked = findAssociation(player.level, pos, collider);
+        Association worked = findAssociation(cache, player.level, pos);
 
         // If it didn't work, the player has walked over the air on the border of a block.
         // ------ ------ --> z
@@ -97,8 +109,8 @@ public class PFSolver implements Solver {
         }
 
         // Create a trigo. mark contained inside the block the player is over
-        double xdang = (player.getX() - pos.getX()) * 2 - 1;
-        double zdang = (player.getZ() - pos.getZ()) * 2 - 1;
+        double xdang = (player.getX() - x) * 2 - 1;
+        double zdang = (player.getZ() - z) * 2 - 1;
         // -1 0 1
         // ------- -1
         // | o |
@@ -123,9 +135,9 @@ public class PFSolver implements Solver {
         // < maxofX- maxofX+ >
         // Take the maximum border to produce the sound
         if (isXdangMax) { // If we are in the positive border, add 1, else subtract 1
-            worked = findAssociation(player.level, pos.east(xdang > 0 ? 1 : -1), collider);
+            worked = findAssociation(cache, player.level, pos.set(x + (xdang > 0 ? 1 : -1), y, z));
         } else {
-            worked = findAssociation(player.level, pos.south(zdang > 0 ? 1 : -1), collider);
+            worked = findAssociation(cache, player.level, pos.set(x, y, z + (zdang > 0 ? 1 : -1)));
         }
 
         // If that didn't work, then maybe the footstep hit in the
@@ -137,44 +149,73 @@ public class PFSolver implements Solver {
 
         // Take the maximum direction and try with the orthogonal direction of it
         if (isXdangMax) {
-            return findAssociation(player.level, pos.north(zdang > 0 ? 1 : -1), collider);
+            return findAssociation(cache, player.level, pos.set(x, y, z - (zdang > 0 ? 1 : -1)));
         }
 
-        return findAssociation(player.level, pos.east(xdang > 0 ? 1 : -1), collider);
+        return findAssociation(cache, player.level, pos.set(x + (xdang > 0 ? 1 : -1), y, z));
     }
 
-    private String findForGolem(Level world, BlockPos pos, String substrate) {
-        List<Entity> golems = world.getEntitiesOfClass(Entity.class, new AABB(pos), e -> !(e instanceof Player));
+    /**
+     * Finds a golem standing at the given position that has an association for the given substrate.
+     */
+    @Nullable
+    private EntityType<?> findGolem(BlockPos pos, String substrate, AssociationCache.Entry entry) {
+        Entity entity = isolator.getGolemGrid().get(pos);
 
-        if (!golems.isEmpty()) {
-            String golem = isolator.getGolemMap().getAssociation(golems.get(0).getType(), substrate);
+        if (entity != null && Emitter.isEmitter(isolator.getGolemMap().getAssociation(entity.getType(), substrate))) {
+            logger.debug("Golem detected: " + entity.getType());
+            // golems move about, so don't hold on to this
+            entry.discardAfterUse();
 
-            if (Emitter.isEmitter(golem)) {
-                logger.debug("Golem detected: " + golem);
+            return entity.getType();
+        }
 
-                return golem;
-            }
+        return null;
+    }
+
+    private Association findAssociation(AssociationCache cache, Level world, BlockPos pos) {
+        AssociationCache.Entry entry = cache.get(world, pos, FOOTSTEP_STRATEGY);
+
+        if (entry == null) {
+            entry = cache.put(world, pos, FOOTSTEP_STRATEGY);
+            entry.association = resolveAssociation(cache, world, pos, entry);
+        }
+
+        // The collider changes with every step, so this is the one check that can't be cached
+        if (!cache.isTouching(entry)) {
+            return Association.NOT_EMITTER;
         }
 
-        return Emitter.UNASSIGNED;
+        return entry.association;
     }
 
-    private Association findAssociation(Level world, BlockPos pos, AABB collider) {
+    private Association resolveAssociation(AssociationCache cache, Level world, BlockPos origin, AssociationCache.Entry entry) {
+        Lookup<BlockState> blockMap = isolator.getBlockMap();
+        Lookup<EntityType<?>> golemMap = isolator.getGolemMap();
+
+        BlockPos.MutableBlockPos pos = cache.target.set(origin);
         BlockState in = world.getBlockState(pos);
 
-        BlockPos up = pos.above();
+        BlockPos up = cache.above.setWithOffset(origin, Direction.UP);
         BlockState above = world.getBlockState(up);
         // Try to see if the block above is a carpet...
 
-        String association = findForGolem(world, up, Lookup.CARPET_SUBSTRATE);
+        EntityType<?> golem = findGolem(up, Lookup.CARPET_SUBSTRATE, entry);
+        String association;
+        AcousticSet acoustics;
+        AcousticSet layers = AcousticSet.EMPTY;
 
-        if (!Emitter.isEmitter(association)) {
-            association = isolator.getBlockMap().getAssociation(above, Lookup.CARPET_SUBSTRATE);
+        if (golem != null) {
+            association = golemMap.getAssociation(golem, Lookup.CARPET_SUBSTRATE);
+            acoustics = golemMap.getAcoustics(golem, Lookup.CARPET_SUBSTRATE);
+        } else {
+            association = blockMap.getAssociation(above, Lookup.CARPET_SUBSTRATE);
+            acoustics = blockMap.getAcoustics(above, Lookup.CARPET_SUBSTRATE);
         }
 
         if (Emitter.isEmitter(association)) {
             logger.debug("Carpet detected: " + association);
-            pos = up;
+            pos.set(up);
             in = above;
         } else {
             // This condition implies that if the carpet is NOT_EMITTER, solving will
@@ -182,15 +223,16 @@ public class PFSolver implements Solver {
             Material mat = in.getMaterial();
 
             if (mat == Material.AIR || mat == Material.DECORATION) {
-                BlockPos down = pos.below();
-                BlockState below = world.getBlockState(down);
+                BlockState below = world.getBlockState(pos.move(Direction.DOWN));
 
-                association = isolator.getBlockMap().getAssociation(below, Lookup.FENCE_SUBSTRATE);
+                association = blockMap.getAssociation(below, Lookup.FENCE_SUBSTRATE);
 
                 if (Emitter.isResult(association)) {
                     logger.debug("Fence detected: " + association);
-                    pos = down;
+                    acoustics = blockMap.getAcoustics(below, Lookup.FENCE_SUBSTRATE);
                     in = below;
+                } else {
+                    pos.move(Direction.UP);
                 }
             }
 
@@ -198,26 +240,30 @@ public class PFSolver implements Solver {
             if (shape.isEmpty()) {
                 shape = in.getShape(world, pos);
             }
-            if (!shape.isEmpty() && !shape.bounds().move(pos).intersects(collider)) {
-                return Association.NOT_EMITTER;
+            if (!shape.isEmpty()) {
+                entry.setBounds(shape, pos);
             }
 
             if (!Emitter.isResult(association)) {
-                association = findForGolem(world, pos, Lookup.EMPTY_SUBSTRATE);
-
-                if (!Emitter.isEmitter(association)) {
-                    association = isolator.getBlockMap().getAssociation(in, Lookup.EMPTY_SUBSTRATE);
+                golem = findGolem(pos, Lookup.EMPTY_SUBSTRATE, entry);
+
+                if (golem != null) {
+                    association = golemMap.getAssociation(golem, Lookup.EMPTY_SUBSTRATE);
+                    acoustics = golemMap.getAcoustics(golem, Lookup.EMPTY_SUBSTRATE);
+                } else {
+                    association = blockMap.getAssociation(in, Lookup.EMPTY_SUBSTRATE);
+                    acoustics = blockMap.getAcoustics(in, Lookup.EMPTY_SUBSTRATE);
                 }
             }
 
             if (Emitter.isEmitter(association)) {
                 // This condition implies that foliage over a NOT_EMITTER block CANNOT PLAY
                 // This block most not be executed if the association is a carpet
-                String foliage = isolator.getBlockMap().getAssociation(above, Lookup.FOLIAGE_SUBSTRATE);
+                String foliage = blockMap.getAssociation(above, Lookup.FOLIAGE_SUBSTRATE);
 
                 if (Emitter.isEmitter(foliage)) {
                     logger.debug("Foliage detected: " + foliage);
-                    association += "," + foliage;
+                    layers = layers.with(blockMap.getAcoustics(above, Lookup.FOLIAGE_SUBSTRATE));
                 }
             }
         }
@@ -230,11 +276,11 @@ public class PFSolver implements Solver {
             // or the block is submerged
             // or the block is waterlogged
             // then append the wet effect to footsteps
-            String wet = isolator.getBlockMap().getAssociation(in, Lookup.WET_SUBSTRATE);
+            String wet = blockMap.getAssociation(in, Lookup.WET_SUBSTRATE);
 
             if (Emitter.isEmitter(wet)) {
                 logger.debug("Wet block detected: " + wet);
-                association += "," + wet;
+                layers = layers.with(blockMap.getAcoustics(in, Lookup.WET_SUBSTRATE));
             }
         }
 
@@ -244,7 +290,7 @@ public class PFSolver implements Solver {
         }
 
         if (Emitter.isResult(association)) {
-            return new Association(in, pos).with(association);
+            return new Association(in, pos.immutable()).with(acoustics.with(layers));
         }
 
         if (in.isAir()) {
@@ -261,7 +307,11 @@ public class PFSolver implements Solver {
             return Association.NOT_EMITTER;
         }
 
-        return new Association(in, pos).with(primitive);
+        if (Emitter.isEmitter(primitive)) {
+            return new Association(in, pos.immutable()).with(isolator.getPrimitiveMap().getAcoustics(sounds, substrate));
+        }
+
+        return new Association(in, pos.immutable()).with(primitive);
     }
 
     @Override
@@ -271,10 +321,10 @@ public class PFSolver implements Solver {
         }
 
         float volume = Math.min(1, (float) ply.getDeltaMovement().length() * 0.35F);
-        Options options = Options.singular("gliding_volume", volume);
+        Options options = stoppingOptions.get().reset().withGlidingVolume(volume);
         State state = ply.isUnderWater() ? State.SWIM : State.WALK;
 
-        isolator.getAcoustics().playAcoustic(ply, "_SWIM", state, options);
+        isolator.getAcoustics().playAcoustic(ply, isolator.getAcoustic(FixedAcoustic.SWIM), state, options);
 
         return true;
     }
@@ -285,12 +335,23 @@ public class PFSolver implements Solver {
     }
 
     @Override
-    public Association findAssociation(Level world, BlockPos pos, String strategy) {
+    public Association findAssociation(AssociationCache cache, Level world, BlockPos pos, String strategy) {
         if (!MESSY_FOLIAGE_STRATEGY.equals(strategy)) {
             return Association.NOT_EMITTER;
         }
 
-        BlockState above = world.getBlockState(pos.above());
+        AssociationCache.Entry entry = cache.get(world, pos, strategy);
+
+        if (entry == null) {
+            entry = cache.put(world, pos, strategy);
+            entry.association = findMessyFoliage(cache, world, pos);
+        }
+
+        return entry.association;
+    }
+
+    private Association findMessyFoliage(AssociationCache cache, Level world, BlockPos pos) {
+        BlockState above = world.getBlockState(cache.above.setWithOffset(pos, Direction.UP));
 
         String foliage = isolator.getBlockMap().getAssociation(above, Lookup.FOLIAGE_SUBSTRATE);
 
@@ -300,7 +361,7 @@ public class PFSolver implements Solver {
 
         // we discard the normal block association, and mark the foliage as detected
         if (Emitter.MESSY_GROUND.equals(isolator.getBlockMap().getAssociation(above, Lookup.MESSY_SUBSTRATE))) {
-            return new Association().with(foliage);
+            return new Association().with(isolator.getBlockMap().getAcoustics(above, Lookup.FOLIAGE_SUBSTRATE));
         }
 
         return Association.NOT_EMITTER;
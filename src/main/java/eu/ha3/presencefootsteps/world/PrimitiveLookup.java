@@ -1,8 +1,12 @@
 package eu.ha3.presencefootsteps.world;
 
+import eu.ha3.presencefootsteps.sound.acoustics.AcousticLibrary;
+import eu.ha3.presencefootsteps.sound.acoustics.AcousticSet;
 import net.minecraft.world.level.block.SoundType;
 import net.minecraft.resources.ResourceLocation;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
@@ -11,11 +15,38 @@ public class PrimitiveLookup implements Lookup<SoundType> {
 
     private final Map<String, Map<ResourceLocation, String>> substrates = new LinkedHashMap<>();
 
+    /**
+     * The same entries as substrates, resolved to acoustics when the lookup is compiled.
+     */
+    private volatile Map<String, Map<ResourceLocation, AcousticSet>> compiled = Collections.emptyMap();
+
     @Override
     public String getAssociation(SoundType sounds, String substrate) {
 
         ResourceLocation id = sounds.getStepSound().getLocation();
-        Map<ResourceLocation, String> primitives = substrates.get(substrate);
+        Map<ResourceLocation, String> primitives = getSubstrate(substrates, id, substrate);
+
+        if (primitives == null) {
+            return Emitter.UNASSIGNED;
+        }
+
+        return primitives.getOrDefault(id, Emitter.UNASSIGNED);
+    }
+
+    @Override
+    public AcousticSet getAcoustics(SoundType sounds, String substrate) {
+        ResourceLocation id = sounds.getStepSound().getLocation();
+        Map<ResourceLocation, AcousticSet> primitives = getSubstrate(compiled, id, substrate);
+
+        if (primitives == null) {
+            return AcousticSet.EMPTY;
+        }
+
+        return primitives.getOrDefault(id, AcousticSet.EMPTY);
+    }
+
+    private static <V> Map<ResourceLocation, V> getSubstrate(Map<String, Map<ResourceLocation, V>> substrates, ResourceLocation id, String substrate) {
+        Map<ResourceLocation, V> primitives = substrates.get(substrate);
 
         if (primitives == null) {
             // Check for break sound
@@ -27,11 +58,24 @@ public class PrimitiveLookup implements Lookup<SoundType> {
             primitives = substrates.get(EMPTY_SUBSTRATE);
         }
 
-        if (primitives == null) {
-            return Emitter.UNASSIGNED;
-        }
+        return primitives;
+    }
 
-        return primitives.getOrDefault(id, Emitter.UNASSIGNED);
+    @Override
+    public void compile(AcousticLibrary acoustics) {
+        Map<String, Map<ResourceLocation, AcousticSet>> compiled = new HashMap<>();
+
+        substrates.forEach((substrate, primitives) -> {
+            Map<ResourceLocation, AcousticSet> sets = compiled.computeIfAbsent(substrate, s -> new HashMap<>());
+
+            primitives.forEach((id, association) -> {
+                if (Emitter.isAcoustic(association)) {
+                    sets.put(id, acoustics.compile(association));
+                }
+            });
+        });
+
+        this.compiled = compiled;
     }
 
     @Override
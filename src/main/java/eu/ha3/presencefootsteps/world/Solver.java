@@ -37,14 +37,16 @@ public interface Solver {
      * Returns NOT_EMITTER if no blocks are valid emitting blocks.<br>
      * Returns a string that begins with "_NO_ASSOCIATION" if a matching block was
      * found, but has no association in the blockmap.
+     * <br>
+     * Blocks already resolved for this entity are served from the given cache.
      */
-    Association findAssociation(Entity ply, double verticalOffsetAsMinus, boolean isRightFoot);
+    Association findAssociation(AssociationCache cache, Entity ply, double verticalOffsetAsMinus, boolean isRightFoot);
 
     /**
      * Find an association for a certain block assuming the player is standing on
      * it, using a custom strategy which strategies are defined by the solver.
      */
-    Association findAssociation(Level w, BlockPos pos, String strategy);
+    Association findAssociation(AssociationCache cache, Level w, BlockPos pos, String strategy);
 
     /**
      * Play special sounds that must stop the usual footstep figuring things out
@@ -2,6 +2,8 @@ package eu.ha3.presencefootsteps.world;
 
 import com.google.common.collect.Lists;
 import eu.ha3.presencefootsteps.PresenceFootsteps;
+import eu.ha3.presencefootsteps.sound.acoustics.AcousticLibrary;
+import eu.ha3.presencefootsteps.sound.acoustics.AcousticSet;
 import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.level.block.state.properties.Property;
@@ -10,6 +12,7 @@ import net.minecraft.resources.ResourceLocation;
 import net.minecraft.core.Registry;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -19,13 +22,23 @@ import java.util.stream.Collectors;
  */
 public class StateLookup implements Lookup<BlockState> {
 
-    private final Map<String, Bucket> substrates = new LinkedHashMap<>();
+    final Map<String, Bucket> substrates = new LinkedHashMap<>();
 
     @Override
     public String getAssociation(BlockState state, String substrate) {
         return substrates.getOrDefault(substrate, Bucket.EMPTY).get(state).value;
     }
 
+    @Override
+    public AcousticSet getAcoustics(BlockState state, String substrate) {
+        return substrates.getOrDefault(substrate, Bucket.EMPTY).get(state).acoustics;
+    }
+
+    @Override
+    public void compile(AcousticLibrary acoustics) {
+        substrates.values().forEach(bucket -> bucket.compile(acoustics));
+    }
+
     @Override
     public void add(String key, String value) {
         if (!Emitter.isResult(value)) {
@@ -33,9 +46,16 @@ public class StateLookup implements Lookup<BlockState> {
             return;
         }
 
-        Key k = new Key(key, value);
+        add(new Key(key, value));
+    }
 
-        substrates.computeIfAbsent(k.substrate, Bucket.Substrate::new).add(k);
+    void add(Key key) {
+        substrates.computeIfAbsent(key.substrate, Bucket.Substrate::new).add(key);
+    }
+
+    @Override
+    public void bake() {
+        substrates.values().forEach(Bucket::bake);
     }
 
     @Override
@@ -54,12 +74,16 @@ public class StateLookup implements Lookup<BlockState> {
         return false;
     }
 
-    private interface Bucket {
+    interface Bucket {
 
         Bucket EMPTY = state -> Key.NULL;
 
         default void add(Key key) {}
 
+        default void bake() {}
+
+        default void compile(AcousticLibrary acoustics) {}
+
         Key get(BlockState state);
 
         default boolean contains(BlockState state) {
@@ -67,9 +91,17 @@ public class StateLookup implements Lookup<BlockState> {
         }
 
         final class Substrate implements Bucket {
-            private final KeyList wildcards = new KeyList();
-            private final Map<ResourceLocation, Bucket> blocks = new LinkedHashMap<>();
-            private final Map<ResourceLocation, Bucket> tags = new LinkedHashMap<>();
+            final KeyList wildcards = new KeyList();
+            final Map<ResourceLocation, Bucket> blocks = new LinkedHashMap<>();
+            final Map<ResourceLocation, Bucket> tags = new LinkedHashMap<>();
+            private final Map<Block, Bucket> tiles = new ConcurrentHashMap<>();
+
+            /**
+             * Every registered block state resolved up front, indexed by its global id.
+             * The states are kept alongside so a remapped id is never trusted.
+             */
+            BlockState[] bakedStates = new BlockState[0];
+            Key[] bakedKeys = new Key[0];
 
             Substrate(String substrate) { }
 
@@ -80,10 +112,55 @@ public class StateLookup implements Lookup<BlockState> {
                 } else {
                     (key.isTag ? tags : blocks).computeIfAbsent(key.identifier, Tile::new).add(key);
                 }
+
+                tiles.clear();
+                bakedStates = new BlockState[0];
+                bakedKeys = new Key[0];
+            }
+
+            @Override
+            public void bake() {
+                // tag membership may have changed since the tiles were last resolved
+                tiles.clear();
+
+                int size = Block.BLOCK_STATE_REGISTRY.size();
+                BlockState[] states = new BlockState[size];
+                Key[] keys = new Key[size];
+
+                for (BlockState state : Block.BLOCK_STATE_REGISTRY) {
+                    int id = Block.getId(state);
+
+                    if (id >= 0 && id < size) {
+                        states[id] = state;
+                        keys[id] = resolve(state);
+                    }
+                }
+
+                bakedKeys = keys;
+                bakedStates = states;
+            }
+
+            @Override
+            public void compile(AcousticLibrary acoustics) {
+                wildcards.compile(acoustics);
+                blocks.values().forEach(tile -> tile.compile(acoustics));
+                tags.values().forEach(tile -> tile.compile(acoustics));
             }
 
             @Override
             public Key get(BlockState state) {
+                BlockState[] states = bakedStates;
+                Key[] keys = bakedKeys;
+                int id = Block.getId(state);
+
+                if (id >= 0 && id < states.length && id < keys.length && states[id] == state) {
+                    return keys[id];
+                }
+
+                return resolve(state);
+            }
+
+            private Key resolve(BlockState state) {
                 Key association = getTile(state).get(state);
 
                 if (association == Key.NULL) {
@@ -98,8 +175,12 @@ public class StateLookup implements Lookup<BlockState> {
             }
 
             private Bucket getTile(BlockState state) {
-                return blocks.computeIfAbsent(Registry.BLOCK.getKey(state.getBlock()), id -> {
-                    Block block = Registry.BLOCK.get(id);
+                return tiles.computeIfAbsent(state.getBlock(), block -> {
+                    Bucket tile = blocks.get(Registry.BLOCK.getKey(block));
+
+                    if (tile != null) {
+                        return tile;
+                    }
 
                     for (ResourceLocation tag : tags.keySet()) {
                         if (BlockTags.getAllTags().getTagOrEmpty(tag).contains(block)) {
@@ -113,8 +194,8 @@ public class StateLookup implements Lookup<BlockState> {
         }
 
         final class Tile implements Bucket {
-            private final Map<BlockState, Key> cache = new LinkedHashMap<>();
-            private final KeyList keys = new KeyList();
+            private final Map<BlockState, Key> cache = new ConcurrentHashMap<>();
+            final KeyList keys = new KeyList();
 
             Tile(ResourceLocation id) { }
 
@@ -123,6 +204,11 @@ public class StateLookup implements Lookup<BlockState> {
                 keys.add(key);
             }
 
+            @Override
+            public void compile(AcousticLibrary acoustics) {
+                keys.compile(acoustics);
+            }
+
             @Override
             public Key get(BlockState state) {
                 return cache.computeIfAbsent(state, keys::findMatch);
@@ -135,14 +221,18 @@ public class StateLookup implements Lookup<BlockState> {
         }
     }
 
-    private static final class KeyList {
-        private final Set<Key> keys = new LinkedHashSet<>();
+    static final class KeyList {
+        final Set<Key> keys = new LinkedHashSet<>();
 
         void add(Key key) {
             keys.remove(key);
             keys.add(key);
         }
 
+        void compile(AcousticLibrary acoustics) {
+            keys.forEach(key -> key.compile(acoustics));
+        }
+
         public Key findMatch(BlockState state) {
             for (Key i : keys) {
                 if (i.matches(state)) {
@@ -153,7 +243,7 @@ public class StateLookup implements Lookup<BlockState> {
         }
     }
 
-    private static final class Key {
+    static final class Key {
 
         public static final Key NULL = new Key();
 
@@ -161,10 +251,20 @@ public class StateLookup implements Lookup<BlockState> {
 
         public final String substrate;
 
-        private final Set<Attribute> properties;
+        final Set<Attribute> properties;
+
+        /**
+         * The properties resolved against each block this key has been matched against.
+         */
+        private final Map<Block, Matcher> matchers = new ConcurrentHashMap<>();
 
         public final String value;
 
+        /**
+         * The acoustics the value names, set when the lookup is compiled.
+         */
+        private volatile AcousticSet acoustics = AcousticSet.EMPTY;
+
         private final boolean empty;
 
         public final boolean isTag;
@@ -231,30 +331,46 @@ public class StateLookup implements Lookup<BlockState> {
                 .map(Attribute::new)
                 .collect(Collectors.toSet());
             empty = properties.isEmpty();
+
+            prepareMatcher();
         }
 
-        boolean matches(BlockState state) {
+        /**
+         * Creates a key from the parts another one was parsed into.
+         */
+        Key(ResourceLocation identifier, boolean isTag, boolean isWildcard, String substrate, Set<Attribute> properties, String value) {
+            this.identifier = identifier;
+            this.isTag = isTag;
+            this.isWildcard = isWildcard;
+            this.substrate = substrate;
+            this.properties = properties;
+            this.value = value;
+            empty = properties.isEmpty();
 
-            if (empty) {
-                return true;
+            prepareMatcher();
+        }
+
+        private void prepareMatcher() {
+            if (!empty && !isTag && !isWildcard && Registry.BLOCK.containsKey(identifier)) {
+                getMatcher(Registry.BLOCK.get(identifier));
             }
+        }
 
-            Map<Property<?>, Comparable<?>> entries = state.getValues();
-            Set<Property<?>> keys = entries.keySet();
+        void compile(AcousticLibrary library) {
+            acoustics = Emitter.isAcoustic(value) ? library.compile(value) : AcousticSet.EMPTY;
+        }
 
-            for (Attribute property : properties) {
-                for (Property<?> key : keys) {
-                    if (key.getName().equals(property.name)) {
-                        Comparable<?> value = entries.get(key);
+        boolean matches(BlockState state) {
 
-                        if (!Objects.toString(value).equals(property.value)) {
-                            return false;
-                        }
-                    }
-                }
+            if (empty) {
+                return true;
             }
 
-            return true;
+            return getMatcher(state.getBlock()).matches(state);
+        }
+
+        private Matcher getMatcher(Block block) {
+            return matchers.computeIfAbsent(block, b -> new Matcher(b, properties));
         }
 
         @Override
@@ -281,9 +397,64 @@ public class StateLookup implements Lookup<BlockState> {
                     && Objects.equals(properties, other.properties);
         }
 
-        private static class Attribute {
-            private final String name;
-            private final String value;
+        /**
+         * A key's attributes resolved to the properties and values of a specific block.
+         * Attributes the block doesn't have are ignored, same as when matching by name.
+         */
+        private static final class Matcher {
+            private final Property<?>[] properties;
+            private final Comparable<?>[] values;
+
+            /**
+             * Set when an attribute's value can't be parsed by the block's property, so nothing will match.
+             */
+            private final boolean never;
+
+            Matcher(Block block, Set<Attribute> attributes) {
+                List<Property<?>> properties = new ArrayList<>();
+                List<Comparable<?>> values = new ArrayList<>();
+                boolean never = false;
+
+                for (Attribute attribute : attributes) {
+                    Property<?> property = block.getStateDefinition().getProperty(attribute.name);
+
+                    if (property != null) {
+                        Optional<? extends Comparable<?>> value = property.getValue(attribute.value);
+
+                        if (value.isPresent()) {
+                            properties.add(property);
+                            values.add(value.get());
+                        } else {
+                            never = true;
+                        }
+                    }
+                }
+
+                this.properties = properties.toArray(new Property<?>[0]);
+                this.values = values.toArray(new Comparable<?>[0]);
+                this.never = never;
+            }
+
+            boolean matches(BlockState state) {
+                if (never) {
+                    return false;
+                }
+
+                for (int i = 0; i < properties.length; i++) {
+                    Comparable<?> value = state.getValue(properties[i]);
+
+                    if (value != values[i] && !value.equals(values[i])) {
+                        return false;
+                    }
+                }
+
+                return true;
+            }
+        }
+
+        static class Attribute {
+            final String name;
+            final String value;
 
             Attribute(String prop) {
                 String[] split = prop.split("=");
@@ -292,6 +463,11 @@ public class StateLookup implements Lookup<BlockState> {
                 this.value = split[1];
             }
 
+            Attribute(String name, String value) {
+                this.name = name;
+                this.value = value;
+            }
+
             @Override
             public int hashCode() {
                 final int prime = 31;
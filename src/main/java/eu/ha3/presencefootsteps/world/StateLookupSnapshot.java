@@ -0,0 +1,211 @@
+package eu.ha3.presencefootsteps.world;
+
+import net.minecraft.core.Registry;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.tags.BlockTags;
+import net.minecraft.tags.Tag;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+
+import javax.annotation.Nullable;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static eu.ha3.presencefootsteps.util.BinaryUtil.readString;
+import static eu.ha3.presencefootsteps.util.BinaryUtil.writeString;
+
+/**
+ * Writes a block map out as it is once parsed and baked, and reads it back without parsing or baking it again.
+ *
+ * Keys are stored as the parts they were parsed into. The baked table is stored as the index of the key
+ * every block state id resolved to, and is only used again while the block tags are the same as they were
+ * when it was baked. Anything else it depends on, the block registry and its state ids, has to be checked by the caller.
+ */
+public final class StateLookupSnapshot {
+
+    private StateLookupSnapshot() {}
+
+    /**
+     * Computes a digest of every block tag and its members, which decide what a tagged key resolves to.
+     */
+    public static byte[] digestTags() {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        List<Map.Entry<ResourceLocation, Tag<Block>>> tags = new ArrayList<>(BlockTags.getAllTags().getAllTags().entrySet());
+        tags.sort(Map.Entry.comparingByKey(Comparator.comparing(ResourceLocation::toString)));
+
+        ByteBuffer buffer = ByteBuffer.allocate(4);
+        for (Map.Entry<ResourceLocation, Tag<Block>> tag : tags) {
+            digest.update(tag.getKey().toString().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte)0);
+            for (Block block : tag.getValue().getValues()) {
+                digest.update(buffer.putInt(0, Registry.BLOCK.getId(block)).array());
+            }
+            digest.update(buffer.putInt(0, -1).array());
+        }
+
+        return digest.digest();
+    }
+
+    /**
+     * Writes out a block map's keys, and its baked table if it was baked against the given tags.
+     *
+     * @param tags The digest of the tags from before the map was baked, or null if it's not known to be baked.
+     */
+    public static void write(DataOutput out, Lookup<BlockState> lookup, @Nullable byte[] tags) throws IOException {
+        if (!(lookup instanceof StateLookup)) {
+            throw new IOException("Unsupported block map " + lookup.getClass());
+        }
+
+        StateLookup map = (StateLookup)lookup;
+        Map<StateLookup.Key, Integer> indices = new IdentityHashMap<>();
+        List<StateLookup.Key> keys = new ArrayList<>();
+
+        for (StateLookup.Bucket bucket : map.substrates.values()) {
+            StateLookup.Bucket.Substrate substrate = (StateLookup.Bucket.Substrate)bucket;
+
+            collect(substrate.wildcards, keys, indices);
+            for (StateLookup.Bucket tile : substrate.blocks.values()) {
+                collect(((StateLookup.Bucket.Tile)tile).keys, keys, indices);
+            }
+            for (StateLookup.Bucket tile : substrate.tags.values()) {
+                collect(((StateLookup.Bucket.Tile)tile).keys, keys, indices);
+            }
+        }
+
+        out.writeInt(keys.size());
+        for (StateLookup.Key key : keys) {
+            writeString(out, key.identifier.toString());
+            out.writeBoolean(key.isTag);
+            out.writeBoolean(key.isWildcard);
+            writeString(out, key.substrate);
+            writeString(out, key.value);
+            out.writeInt(key.properties.size());
+            for (StateLookup.Key.Attribute attribute : key.properties) {
+                writeString(out, attribute.name);
+                writeString(out, attribute.value);
+            }
+        }
+
+        // only trust the table if the tags didn't change while it was being baked
+        boolean baked = tags != null && Arrays.equals(tags, digestTags()) && isBaked(map);
+        out.writeBoolean(baked);
+
+        if (baked) {
+            out.writeInt(tags.length);
+            out.write(tags);
+            out.writeInt(Block.BLOCK_STATE_REGISTRY.size());
+
+            for (StateLookup.Bucket bucket : map.substrates.values()) {
+                StateLookup.Key[] table = ((StateLookup.Bucket.Substrate)bucket).bakedKeys;
+
+                for (StateLookup.Key key : table) {
+                    Integer index = key == null ? null : indices.get(key);
+                    out.writeInt(index == null ? -1 : index);
+                }
+            }
+        }
+    }
+
+    private static void collect(StateLookup.KeyList list, List<StateLookup.Key> keys, Map<StateLookup.Key, Integer> indices) {
+        for (StateLookup.Key key : list.keys) {
+            indices.put(key, keys.size());
+            keys.add(key);
+        }
+    }
+
+    private static boolean isBaked(StateLookup map) {
+        int size = Block.BLOCK_STATE_REGISTRY.size();
+
+        for (StateLookup.Bucket bucket : map.substrates.values()) {
+            if (((StateLookup.Bucket.Substrate)bucket).bakedKeys.length != size) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Reads a block map back into an empty one.
+     *
+     * @return True if the baked table could be used as it was, otherwise the map still has to be baked.
+     */
+    public static boolean read(ByteBuffer in, Lookup<BlockState> lookup) throws IOException {
+        if (!(lookup instanceof StateLookup)) {
+            throw new IOException("Unsupported block map " + lookup.getClass());
+        }
+
+        StateLookup map = (StateLookup)lookup;
+        StateLookup.Key[] keys = new StateLookup.Key[in.getInt()];
+
+        for (int i = 0; i < keys.length; i++) {
+            ResourceLocation identifier = new ResourceLocation(readString(in));
+            boolean isTag = in.get() != 0;
+            boolean isWildcard = in.get() != 0;
+            String substrate = readString(in);
+            String value = readString(in);
+
+            int count = in.getInt();
+            Set<StateLookup.Key.Attribute> properties = new LinkedHashSet<>();
+            for (int p = 0; p < count; p++) {
+                properties.add(new StateLookup.Key.Attribute(readString(in), readString(in)));
+            }
+
+            keys[i] = new StateLookup.Key(identifier, isTag, isWildcard, substrate, properties, value);
+            map.add(keys[i]);
+        }
+
+        if (in.get() == 0) {
+            return false;
+        }
+
+        byte[] tags = new byte[in.getInt()];
+        in.get(tags);
+        int size = in.getInt();
+
+        if (size != Block.BLOCK_STATE_REGISTRY.size() || !Arrays.equals(tags, digestTags())) {
+            return false;
+        }
+
+        BlockState[] states = new BlockState[size];
+        for (BlockState state : Block.BLOCK_STATE_REGISTRY) {
+            int id = Block.getId(state);
+            if (id >= 0 && id < size) {
+                states[id] = state;
+            }
+        }
+
+        for (StateLookup.Bucket bucket : map.substrates.values()) {
+            StateLookup.Key[] table = new StateLookup.Key[size];
+
+            for (int id = 0; id < size; id++) {
+                int index = in.getInt();
+                table[id] = index < 0 ? StateLookup.Key.NULL : keys[index];
+            }
+
+            StateLookup.Bucket.Substrate substrate = (StateLookup.Bucket.Substrate)bucket;
+            substrate.bakedKeys = table;
+            substrate.bakedStates = states;
+        }
+
+        return true;
+    }
+}